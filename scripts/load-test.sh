@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Compare platform vs virtual threads under slow Mongo.
+#
+# Needs: toxiproxy-server + toxiproxy-cli, hey (https://github.com/rakyll/hey), a local mongod on 27017.
+# Mongo is reached through toxiproxy with a fixed latency toxic, then the app is started
+# twice (VIRTUAL_THREADS_ENABLED=false/true) and hit with the same load each time.
+#
+# Without those tools, VirtualThreadLoadTest runs the same comparison in-process
+# (mongo-java-server behind a latency proxy, jedis-mock for Redis):
+#   mvn test -Dtest=VirtualThreadLoadTest -Dloadtest=true
+#
+# The default target (a customer's order list) is not cached, so every request reaches Mongo:
+#   TOKEN=<jwt> USER_ID=<id> ./scripts/load-test.sh
+set -euo pipefail
+
+: "${TOKEN:?TOKEN (a JWT for USER_ID) is required}"
+: "${USER_ID:?USER_ID is required}"
+
+LATENCY_MS=${LATENCY_MS:-200}
+CONCURRENCY=${CONCURRENCY:-400}
+REQUESTS=${REQUESTS:-20000}
+URL=${URL:-http://localhost:8080/api/orders/by-customer/${USER_ID}}
+PROXY_PORT=${PROXY_PORT:-27018}
+
+toxiproxy-cli delete mongo >/dev/null 2>&1 || true
+toxiproxy-cli create -l localhost:${PROXY_PORT} -u localhost:27017 mongo
+toxiproxy-cli toxic add -t latency -a latency=${LATENCY_MS} mongo
+
+export MONGODB_URI=${MONGODB_URI:-mongodb://localhost:${PROXY_PORT}/v-disk}
+
+for virtual in false true; do
+  echo "=== VIRTUAL_THREADS_ENABLED=${virtual} (mongo +${LATENCY_MS}ms) ==="
+  VIRTUAL_THREADS_ENABLED=${virtual} \
+    JAVA_TOOL_OPTIONS="-Djdk.tracePinnedThreads=short" \
+    java -jar target/*.jar > "load-test-${virtual}.log" 2>&1 &
+  app=$!
+  until curl -s -o /dev/null -H "Authorization: Bearer ${TOKEN}" "${URL}"; do sleep 1; done
+  hey -n 2000 -c 50 -H "Authorization: Bearer ${TOKEN}" "${URL}" > /dev/null
+  hey -n "${REQUESTS}" -c "${CONCURRENCY}" -H "Authorization: Bearer ${TOKEN}" "${URL}" | grep -E "Requests/sec|99% in|Status code|\[[0-9]+\]"
+  kill ${app}; wait ${app} || true
+  grep -c "pinned" "load-test-${virtual}.log" | sed 's/^/pinned-thread reports: /' || true
+done
+
+toxiproxy-cli delete mongo
@@ -0,0 +1,27 @@
+package com.v_disk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // Declared here because Boot skips its own applicationTaskExecutor as soon as any other
+    // Executor bean exists (mailOutboxExecutor). Virtual threads when
+    // spring.threads.virtual.enabled=true, a bounded platform pool otherwise.
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder poolBuilder,
+            SimpleAsyncTaskExecutorBuilder virtualBuilder,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return virtualBuilder.virtualThreads(true).threadNamePrefix("task-").build();
+        }
+        return poolBuilder.threadNamePrefix("task-").build();
+    }
+}
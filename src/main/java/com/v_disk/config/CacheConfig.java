@@ -0,0 +1,112 @@
+package com.v_disk.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.v_disk.model.Vinyl;
+
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final String VINYL_LIST = "vinyls:list";
+    public static final String VINYL_BY_ID = "vinyls:byId";
+    public static final String VINYL_PRINCIPAL = "vinyls:principal";
+    public static final String VINYL_SEARCH = "vinyls:search";
+
+    @Value("${app.cache.catalog.ttl.list-seconds:60}")
+    private long listTtlSeconds;
+
+    @Value("${app.cache.catalog.ttl.item-seconds:300}")
+    private long itemTtlSeconds;
+
+    @Value("${app.cache.catalog.ttl.principal-seconds:600}")
+    private long principalTtlSeconds;
+
+    @Value("${app.cache.catalog.ttl.search-seconds:30}")
+    private long searchTtlSeconds;
+
+    @Bean
+    public RedisCacheManager cacheManager(RedisConnectionFactory factory) {
+        // Values are stored as plain JSON of a known type (no class metadata) to keep entries small
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        JavaType vinylList = mapper.getTypeFactory().constructCollectionType(List.class, Vinyl.class);
+
+        RedisCacheConfiguration base = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith("v-disk:");
+        RedisCacheConfiguration listCfg = base
+                .serializeValuesWith(SerializationPair.fromSerializer(new Jackson2JsonRedisSerializer<>(mapper, vinylList)));
+        RedisCacheConfiguration itemCfg = base
+                .serializeValuesWith(SerializationPair.fromSerializer(new Jackson2JsonRedisSerializer<>(mapper, Vinyl.class)));
+
+        // SCAN instead of KEYS when a whole cache is cleared
+        RedisCacheWriter writer = RedisCacheWriter.nonLockingRedisCacheWriter(factory, BatchStrategies.scan(500));
+
+        return RedisCacheManager.builder(writer)
+                .cacheDefaults(base)
+                .withInitialCacheConfigurations(Map.of(
+                        VINYL_LIST, listCfg.entryTtl(Duration.ofSeconds(listTtlSeconds)),
+                        VINYL_BY_ID, itemCfg.entryTtl(Duration.ofSeconds(itemTtlSeconds)),
+                        VINYL_PRINCIPAL, listCfg.entryTtl(Duration.ofSeconds(principalTtlSeconds)),
+                        VINYL_SEARCH, listCfg.entryTtl(Duration.ofSeconds(searchTtlSeconds))))
+                .enableStatistics()
+                .build();
+    }
+
+    /**
+     * A Redis outage must not break the catalog: log and fall through to Mongo.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new CacheErrorHandler() {
+            @Override
+            public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+                logger.warn("Cache get failed cache={} key={}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+                logger.warn("Cache put failed cache={} key={}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+                logger.warn("Cache evict failed cache={} key={}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCacheClearError(RuntimeException exception, Cache cache) {
+                logger.warn("Cache clear failed cache={}: {}", cache.getName(), exception.getMessage());
+            }
+        };
+    }
+}
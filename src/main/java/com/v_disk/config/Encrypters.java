@@ -1,15 +1,60 @@
 package com.v_disk.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.v_disk.utils.BoundedPasswordEncoder;
 
 @Configuration
 public class Encrypters {
+
+    private static final Logger logger = LoggerFactory.getLogger(Encrypters.class);
+
+    // never go below the cost existing hashes were written with
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+
+    /**
+     * BCrypt with {@code app.security.bcrypt.cost}; 0 picks the highest cost whose hash
+     * still takes at most {@code target-millis} on this machine. Stored hashes with a
+     * lower cost are upgraded on the next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder(10);
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.security.bcrypt.cost:10}") int cost,
+            @Value("${app.security.bcrypt.target-millis:250}") long targetMillis,
+            @Value("${app.security.hashing.threads:0}") int threads,
+            @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.hashing.timeout-ms:3000}") long timeoutMillis) {
+        int chosen = cost > 0 ? cost : MIN_COST;
+        long millis = benchmark(chosen);
+        if (cost <= 0) {
+            // each step doubles the work
+            while (chosen < MAX_COST && millis * 2 <= targetMillis) {
+                chosen++;
+                millis = benchmark(chosen);
+            }
+        }
+        logger.info("BCrypt cost {} takes ~{} ms per hash (target {} ms)", chosen, millis, targetMillis);
+        if (millis > targetMillis) {
+            logger.warn("BCrypt cost {} is slower than the {} ms target, logins will queue under load", chosen, targetMillis);
+        }
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(chosen), poolSize, queueCapacity, timeoutMillis);
+    }
+
+    private static long benchmark(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        // first call warms up the JIT
+        encoder.encode("benchmark");
+        long start = System.nanoTime();
+        encoder.encode("benchmark");
+        return (System.nanoTime() - start) / 1_000_000;
     }
 
 }
@@ -5,13 +5,14 @@ import java.io.IOException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.v_disk.service.JwtService;
+import com.v_disk.service.PrincipalCacheService;
+import com.v_disk.service.TokenRevocationService;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
@@ -24,11 +25,14 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCacheService principalCacheService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, PrincipalCacheService principalCacheService,
+            TokenRevocationService tokenRevocationService) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.principalCacheService = principalCacheService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -40,11 +44,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             
             if (jwt != null) {
                 try {
-                    Claims claims = jwtService.validateToken(jwt);
+                    Claims claims = jwtService.validateToken(request, jwt);
                     String username = claims.getSubject();
-                    
-                    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+                    // in-memory bloom filter check, Redis is only asked on a hit
+                    if (tokenRevocationService.isRevoked(claims)) {
+                        logger.warn("Revoked JWT presented for user='" + username + "'");
+                    } else if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                        UserDetails userDetails = principalCacheService.resolve(username, claims);
                         
                         // Create authentication object
                         UsernamePasswordAuthenticationToken authToken = 
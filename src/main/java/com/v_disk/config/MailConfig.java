@@ -0,0 +1,85 @@
+package com.v_disk.config;
+
+import java.util.Properties;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.v_disk.utils.PooledJavaMailSender;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    public static final String OUTBOX_EXECUTOR = "mailOutboxExecutor";
+
+    private final ObjectProvider<JavaMailSender> mailSender;
+
+    public MailConfig(ObjectProvider<JavaMailSender> mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    // Replaces Boot's sender so SMTP sessions are reused across sends (app.mail.pool.enabled=false to opt out)
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.mail", name = "host")
+    public JavaMailSenderImpl mailSender(MailProperties properties,
+            @Value("${app.mail.pool.enabled:true}") boolean pooled,
+            @Value("${app.mail.pool.max-sessions:4}") int maxSessions,
+            @Value("${app.mail.pool.max-messages-per-session:100}") int maxMessagesPerSession,
+            @Value("${app.mail.pool.max-idle-seconds:60}") long maxIdleSeconds,
+            @Value("${app.mail.pool.acquire-timeout-ms:10000}") long acquireTimeoutMillis) {
+        JavaMailSenderImpl sender = pooled
+                ? new PooledJavaMailSender(maxSessions, maxMessagesPerSession, maxIdleSeconds * 1000, acquireTimeoutMillis)
+                : new JavaMailSenderImpl();
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        if (!properties.getProperties().isEmpty()) {
+            Properties javaMail = new Properties();
+            javaMail.putAll(properties.getProperties());
+            sender.setJavaMailProperties(javaMail);
+        }
+        return sender;
+    }
+
+    // Workers that drain the email outbox; the poller never claims more than they can take.
+    // Kept on platform threads even in virtual-thread mode: jakarta.mail's SMTPTransport
+    // synchronizes around socket I/O, which would pin the carrier threads.
+    @Bean(name = OUTBOX_EXECUTOR)
+    public ThreadPoolTaskExecutor mailOutboxExecutor(@Value("${app.mail.outbox.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mail-outbox-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.pool.idle-check-ms:30000}")
+    public void closeIdleSmtpSessions() {
+        if (mailSender.getIfAvailable() instanceof PooledJavaMailSender pooled) {
+            pooled.closeIdle();
+        }
+    }
+}
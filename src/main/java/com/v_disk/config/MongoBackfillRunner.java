@@ -0,0 +1,143 @@
+package com.v_disk.config;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.result.UpdateResult;
+import com.v_disk.model.Order;
+import com.v_disk.model.User;
+import com.v_disk.model.Vinyl;
+
+/**
+ * Idempotent, server-side data fixes for documents written before a field existed.
+ * Each step is a single updateMulti where the server can compute the value; the search
+ * words are the exception and are streamed through in batches. Indexes that were
+ * superseded are dropped last.
+ */
+@Component
+public class MongoBackfillRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoBackfillRunner.class);
+
+    private static final int BACKFILL_BATCH = 500;
+
+    // titleKey is a prefix of titleKey_artistKey_idx and nothing queries artistKey alone
+    private static final List<String> OBSOLETE_VINYL_INDEXES = List.of("titleKey_idx", "artistKey_idx");
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoBackfillRunner(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            backfillVinylSearchKeys();
+            backfillVinylSearchWords();
+            backfillVersions();
+            backfillCreatedAt();
+            dropObsoleteIndexes();
+        } catch (Exception e) {
+            logger.warn("Mongo backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void backfillVinylSearchKeys() {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("titleKey").toValue(StringOperators.valueOf(StringOperators.valueOf("title").trim()).toLower())
+                .set("artistKey").toValue(StringOperators.valueOf(StringOperators.valueOf("artist").trim()).toLower());
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("titleKey").exists(false)), update, Vinyl.class);
+        if (result.getModifiedCount() > 0) {
+            logger.info("Backfilled search keys on {} vinyls", result.getModifiedCount());
+        }
+    }
+
+    // the word split has no server-side equivalent, so this one streams the affected vinyls
+    // (title/artist only) and writes the arrays back in unordered bulks
+    private void backfillVinylSearchWords() {
+        Query q = Query.query(Criteria.where("titleWords").exists(false));
+        q.fields().include("title", "artist");
+        q.cursorBatchSize(BACKFILL_BATCH);
+        long updated = 0;
+        try (Stream<Vinyl> vinyls = mongoTemplate.stream(q, Vinyl.class)) {
+            BulkOperations ops = null;
+            int pending = 0;
+            for (Vinyl v : (Iterable<Vinyl>) vinyls::iterator) {
+                if (ops == null) ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vinyl.class);
+                ops.updateOne(Query.query(Criteria.where("_id").is(v.getId())), new Update()
+                        .set("titleWords", Vinyl.searchWords(v.getTitle()))
+                        .set("artistWords", Vinyl.searchWords(v.getArtist())));
+                if (++pending == BACKFILL_BATCH) {
+                    updated += ops.execute().getModifiedCount();
+                    ops = null;
+                    pending = 0;
+                }
+            }
+            if (ops != null) {
+                updated += ops.execute().getModifiedCount();
+            }
+        }
+        if (updated > 0) {
+            logger.info("Backfilled search words on {} vinyls", updated);
+        }
+    }
+
+    // @Version treats a null version as a new entity, so save() on an old document would insert
+    private void backfillVersions() {
+        for (Class<?> type : List.of(Vinyl.class, Order.class, User.class)) {
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)), new Update().set("version", 0L), type);
+            if (result.getModifiedCount() > 0) {
+                logger.info("Backfilled version on {} {} documents", result.getModifiedCount(), type.getSimpleName());
+            }
+        }
+    }
+
+    // keyset paging ranges on createdAt never match a missing value, so those documents
+    // would drop out of every page; the ObjectId carries the insertion time
+    private void backfillCreatedAt() {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("createdAt").toValue(ConvertOperators.valueOf("_id").convertToDate());
+        for (Class<?> type : List.of(Vinyl.class, Order.class)) {
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("createdAt").is(null).and("_id").type(7)), update, type);
+            if (result.getModifiedCount() > 0) {
+                logger.info("Backfilled createdAt on {} {} documents", result.getModifiedCount(), type.getSimpleName());
+            }
+            long left = mongoTemplate.count(Query.query(Criteria.where("createdAt").is(null)), type);
+            if (left > 0) {
+                logger.warn("{} {} documents have no createdAt and no ObjectId to derive it from; they are skipped by cursor paging",
+                        left, type.getSimpleName());
+            }
+        }
+    }
+
+    private void dropObsoleteIndexes() {
+        IndexOperations ops = mongoTemplate.indexOps(Vinyl.class);
+        for (IndexInfo index : ops.getIndexInfo()) {
+            if (OBSOLETE_VINYL_INDEXES.contains(index.getName())) {
+                ops.dropIndex(index.getName());
+                logger.info("Dropped obsolete vinyl index {}", index.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.v_disk.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v_disk.service.RateLimiterService;
+import com.v_disk.service.RateLimiterService.Limit;
+import com.v_disk.utils.CachedBodyHttpServletRequest;
+import com.v_disk.utils.ResponseJSON;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects abusive traffic on the public, expensive endpoints (bcrypt login, password
+ * change, outgoing mail, signup) with 429 before the JWT filter or a controller runs.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_LOGIN_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiterService rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // only honour X-Forwarded-For behind a proxy that sets it, clients can forge it otherwise
+    @Value("${app.rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Value("${app.rate-limit.login.per-ip:20}")
+    private int loginPerIp;
+    @Value("${app.rate-limit.login.per-email:5}")
+    private int loginPerEmail;
+    @Value("${app.rate-limit.login.global:0}")
+    private int loginGlobal;
+    @Value("${app.rate-limit.login.window-seconds:60}")
+    private long loginWindowSeconds;
+
+    @Value("${app.rate-limit.change-password.per-ip:10}")
+    private int changePasswordPerIp;
+    @Value("${app.rate-limit.change-password.window-seconds:300}")
+    private long changePasswordWindowSeconds;
+
+    @Value("${app.rate-limit.mail.per-ip:5}")
+    private int mailPerIp;
+    @Value("${app.rate-limit.mail.per-recipient:3}")
+    private int mailPerRecipient;
+    @Value("${app.rate-limit.mail.window-seconds:600}")
+    private long mailWindowSeconds;
+
+    @Value("${app.rate-limit.signup.per-ip:10}")
+    private int signupPerIp;
+    @Value("${app.rate-limit.signup.window-seconds:3600}")
+    private long signupWindowSeconds;
+
+    public RateLimitFilter(RateLimiterService rateLimiter, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        String ip = clientIp(request);
+        // the scope in braces is a hash tag: one request's limits share a cluster slot
+        List<Limit> limits = new ArrayList<>(3);
+        HttpServletRequest forward = request;
+
+        if ("POST".equals(method) && "/api/auth/login".equals(path)) {
+            add(limits, "{login}:ip:" + ip, loginPerIp, loginWindowSeconds);
+            add(limits, "{login}:all", loginGlobal, loginWindowSeconds);
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request, MAX_LOGIN_BODY_BYTES);
+            forward = cached;
+            String email = loginEmail(cached.getCachedBody());
+            if (email != null) {
+                add(limits, "{login}:email:" + hash(email), loginPerEmail, loginWindowSeconds);
+            }
+        } else if ("POST".equals(method) && "/api/auth/change-password".equals(path)) {
+            add(limits, "{password}:ip:" + ip, changePasswordPerIp, changePasswordWindowSeconds);
+        } else if (pathMatcher.match("/api/mail/**", path) && !"GET".equals(method)) {
+            add(limits, "{mail}:ip:" + ip, mailPerIp, mailWindowSeconds);
+            String to = request.getParameter("to");
+            if (StringUtils.hasText(to)) {
+                add(limits, "{mail}:to:" + hash(to), mailPerRecipient, mailWindowSeconds);
+            }
+        } else if ("POST".equals(method) && ("/api/users".equals(path) || "/api/users/".equals(path)
+                || pathMatcher.match("/api/users/resend-verification/**", path))) {
+            add(limits, "{signup}:ip:" + ip, signupPerIp, signupWindowSeconds);
+        }
+
+        long waitMillis = rateLimiter.acquire(limits);
+        if (waitMillis > 0) {
+            long retryAfter = Math.max(1, (waitMillis + 999) / 1000);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getWriter(), new ResponseJSON<>("too_many_requests", retryAfter));
+            return;
+        }
+        filterChain.doFilter(forward, response);
+    }
+
+    private static void add(List<Limit> limits, String key, int max, long windowSeconds) {
+        if (max > 0) {
+            limits.add(new Limit(RateLimiterService.KEY_PREFIX + key, max, windowSeconds * 1000));
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(forwarded)) {
+                return forwarded.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private String loginEmail(byte[] body) {
+        if (body == null || body.length == 0) return null;
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() && !email.asText().isBlank() ? email.asText() : null;
+        } catch (IOException e) {
+            // malformed JSON is rejected by the controller, the IP limit still applies
+            return null;
+        }
+    }
+
+    // emails are not kept in Redis in clear text
+    private static String hash(String value) {
+        return DigestUtils.md5DigestAsHex(value.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    }
+}
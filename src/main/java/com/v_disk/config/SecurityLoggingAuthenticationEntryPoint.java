@@ -47,7 +47,7 @@ public class SecurityLoggingAuthenticationEntryPoint implements AuthenticationEn
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                Claims claims = jwtService.validateToken(token);
+                Claims claims = jwtService.validateToken(request, token);
                 tokenSubject = claims.getSubject();
             } catch (Exception e) {
                 tokenSubject = "<invalid-token: " + e.getClass().getSimpleName() + ": " + e.getMessage() + ">";
@@ -5,6 +5,9 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,7 +16,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -21,13 +23,23 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.v_disk.model.User;
 import com.v_disk.repository.UserRepository;
+import com.v_disk.service.AuthenticatedUser;
 import com.v_disk.service.EmailVerificationService;
 import com.v_disk.service.JwtService;
+import com.v_disk.service.PrincipalCacheService;
+import com.v_disk.service.RefreshTokenService;
+import com.v_disk.service.TokenRevocationService;
+import com.v_disk.service.UserDetailsServiceImpl;
 import com.v_disk.utils.ResponseJSON;
+import com.v_disk.utils.VersionedUpdate;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -44,6 +56,11 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final com.v_disk.repository.EmailVerificationTokenRepository tokenRepository;
+    private final PrincipalCacheService principalCacheService;
+    private final MongoTemplate mongoTemplate;
+    private final RefreshTokenService refreshTokenService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthController(
             EmailVerificationService emailVerificationService,
@@ -51,13 +68,23 @@ public class AuthController {
             JwtService jwtService,
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
-            com.v_disk.repository.EmailVerificationTokenRepository tokenRepository) {
+            com.v_disk.repository.EmailVerificationTokenRepository tokenRepository,
+            PrincipalCacheService principalCacheService,
+            MongoTemplate mongoTemplate,
+            RefreshTokenService refreshTokenService,
+            UserDetailsServiceImpl userDetailsService,
+            TokenRevocationService tokenRevocationService) {
         this.emailVerificationService = emailVerificationService;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenRepository = tokenRepository;
+        this.principalCacheService = principalCacheService;
+        this.mongoTemplate = mongoTemplate;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     public static class LoginRequest {
@@ -85,13 +112,29 @@ public class AuthController {
         }
     }
 
+    public static class RefreshRequest {
+        private String refreshToken;
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
+        public void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
+    }
+
     public static class TokenResponse {
         private final String token;
         private final String type = "Bearer";
+        private final long expiresIn;
+        private final String refreshToken;
         private final UserPublic user;
 
-        public TokenResponse(String token, UserPublic user) {
+        public TokenResponse(String token, long expiresIn, String refreshToken, UserPublic user) {
             this.token = token;
+            this.expiresIn = expiresIn;
+            this.refreshToken = refreshToken;
             this.user = user;
         }
 
@@ -99,6 +142,14 @@ public class AuthController {
             return token;
         }
 
+        public long getExpiresIn() {
+            return expiresIn;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
         public String getType() {
             return type;
         }
@@ -114,9 +165,9 @@ public class AuthController {
         private final String name;
         private final Object roles;
 
-        public UserPublic(User u) {
+        public UserPublic(AuthenticatedUser u) {
             this.id = u.getId();
-            this.email = u.getEmail();
+            this.email = u.getUsername();
             this.name = u.getName();
             this.roles = u.getRoles();
         }
@@ -147,25 +198,16 @@ public class AuthController {
 
             logger.info("Authentication successful for {}", loginRequest.getEmail());
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-
-            User user = userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found after authentication"));
+            // loaded by the single projected query of the authentication provider
+            AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("userId", user.getId());
-            claims.put("roles", user.getRoles());
-            claims.put("name", user.getName());
-
-            String jwt = jwtService.generateToken(user.getEmail(), claims);
-            if (jwt == null || jwt.isBlank()) {
-                logger.error("JWT generation returned null/empty for user {}", user.getEmail());
+            TokenResponse tokens = issueTokens(user, refreshTokenService.issue(user.getId()));
+            if (tokens == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(new ResponseJSON<>("error", null));
             }
-
-            logger.info("JWT generated for user {}", user.getEmail());
-            return ResponseEntity.ok(new ResponseJSON<>("success", new TokenResponse(jwt, new UserPublic(user))));
+            logger.info("JWT generated for user {}", user.getUsername());
+            return ResponseEntity.ok(new ResponseJSON<>("success", tokens));
         } catch (BadCredentialsException e) {
             logger.warn("Bad credentials for {}", loginRequest.getEmail());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -174,6 +216,11 @@ public class AuthController {
             logger.warn("Authentication failed for {}: {}", loginRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ResponseJSON<>("error", null));
+        } catch (ResponseStatusException e) {
+            // password hashing pool saturated
+            logger.warn("Login for {} rejected: {}", loginRequest.getEmail(), e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new ResponseJSON<>("busy", null));
         } catch (Exception e) {
             logger.error("Unexpected error during login for {}: {}", loginRequest.getEmail(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -181,6 +228,63 @@ public class AuthController {
         }
     }
 
+    /**
+     * Trades a refresh token for a new access token and the next refresh token of the
+     * same session. Claims are rebuilt from the user document, so role changes and
+     * deletions take effect here, at most one access-token lifetime later.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ResponseJSON<TokenResponse>> refresh(@RequestBody(required = false) RefreshRequest body) {
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(body != null ? body.getRefreshToken() : null);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(new ResponseJSON<>(e.getReason(), null));
+        }
+        AuthenticatedUser user = userDetailsService.loadUserById(rotation.userId());
+        if (user == null || !user.isEnabled()) {
+            refreshTokenService.revokeAll(rotation.userId());
+            tokenRevocationService.revokeUser(rotation.userId());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseJSON<>("invalid_refresh_token", null));
+        }
+        TokenResponse tokens = issueTokens(user, rotation.refreshToken());
+        if (tokens == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ResponseJSON<>("error", null));
+        }
+        return ResponseEntity.ok(new ResponseJSON<>("success", tokens));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ResponseJSON<String>> logout(@RequestBody(required = false) RefreshRequest body,
+            HttpServletRequest request) {
+        refreshTokenService.revoke(body != null ? body.getRefreshToken() : null);
+        // also kill the access token the client is holding, not just the session behind it
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtService.validateToken(request, header.substring(7));
+                tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            } catch (JwtException ignored) {
+                // expired or invalid tokens need no revocation
+            }
+        }
+        return ResponseEntity.ok(new ResponseJSON<>("success", "logged_out"));
+    }
+
+    private TokenResponse issueTokens(AuthenticatedUser user, String refreshToken) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", user.getId());
+        claims.put("roles", user.getRoles());
+        claims.put("name", user.getName());
+
+        String jwt = jwtService.generateToken(user.getUsername(), claims);
+        if (jwt == null || jwt.isBlank()) {
+            logger.error("JWT generation returned null/empty for user {}", user.getUsername());
+            return null;
+        }
+        return new TokenResponse(jwt, jwtService.getTtlSeconds(), refreshToken, new UserPublic(user));
+    }
+
     // @PostMapping({"/", "/login"})
     // public ResponseEntity<ResponseJSON<TokenResponse>> login(@Valid @RequestBody
     // LoginRequest loginRequest) {
@@ -295,8 +399,12 @@ public class AuthController {
         }
         // If finded, sucess
         var u = ou.get();
-        u.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(u);
+        VersionedUpdate.apply(mongoTemplate, User.class, u.getId(), null,
+                new Update().set("password", passwordEncoder.encode(newPassword)), false);
+        principalCacheService.evict(u.getEmail());
+        // sessions and access tokens issued with the old password must not outlive it
+        refreshTokenService.revokeAll(u.getId());
+        tokenRevocationService.revokeUser(u.getId());
         try {
             tokenRepository.deleteByUserId(u.getId());
         } catch (Exception ignored) {
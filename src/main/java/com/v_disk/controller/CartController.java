@@ -1,5 +1,6 @@
 package com.v_disk.controller;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
@@ -14,9 +15,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.v_disk.dto.cart.CartOperationDTO;
+import com.v_disk.dto.cart.CartViewDTO;
 import com.v_disk.service.CartService;
 import com.v_disk.utils.ResponseJSON;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 
 @RestController
@@ -35,6 +39,12 @@ public class CartController {
         return ResponseEntity.ok(new ResponseJSON<>("success", items));
     }
 
+    // Cart lines with vinyl details, stock and subtotal, so the cart page needs a single request
+    @GetMapping("/{userId}/view")
+    public ResponseEntity<ResponseJSON<CartViewDTO>> getCartView(@PathVariable @NotBlank String userId) {
+        return ResponseEntity.ok(new ResponseJSON<>("success", cartService.view(userId)));
+    }
+
     @PostMapping("/{userId}/item/{vinylId}")
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<ResponseJSON<String>> addOrUpdateItem(@PathVariable String userId, @PathVariable String vinylId, @RequestBody Map<String, Integer> body) {
@@ -66,4 +76,11 @@ public class CartController {
         cartService.createCart(userId, items);
         return ResponseEntity.status(HttpStatus.CREATED).body(new ResponseJSON<>("created", "cart_created"));
     }
+
+    // Applies a batch of debounced cart edits atomically and returns the resulting cart
+    @PostMapping("/{userId}/ops")
+    public ResponseEntity<ResponseJSON<Map<String, Integer>>> applyOperations(@PathVariable String userId, @RequestBody List<@Valid CartOperationDTO> ops) {
+        Map<String, Integer> items = cartService.apply(userId, ops);
+        return ResponseEntity.ok(new ResponseJSON<>("success", items));
+    }
 }
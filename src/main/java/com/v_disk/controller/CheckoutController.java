@@ -19,9 +19,11 @@ import com.v_disk.dto.order.OrderResponseDTO;
 import com.v_disk.model.Order;
 import com.v_disk.model.OrderItem;
 import com.v_disk.repository.OrderRepository;
-import com.v_disk.repository.VinylRepository;
 import com.v_disk.service.CartService;
 import com.v_disk.service.CheckoutService;
+import com.v_disk.service.StockReservationService;
+import com.v_disk.service.StockService;
+import com.v_disk.service.VinylSnapshotService;
 import com.v_disk.utils.ResponseJSON;
 
 import jakarta.validation.Valid;
@@ -36,13 +38,16 @@ public class CheckoutController {
     private final CheckoutService checkoutService;
     private final CartService cartService;
     private final OrderRepository orderRepository;
-    private final VinylRepository vinylRepository;
+    private final VinylSnapshotService vinylSnapshotService;
+    private final StockReservationService reservationService;
 
-    public CheckoutController(CheckoutService checkoutService, CartService cartService, OrderRepository orderRepository, VinylRepository vinylRepository) {
+    public CheckoutController(CheckoutService checkoutService, CartService cartService, OrderRepository orderRepository, VinylSnapshotService vinylSnapshotService,
+            StockReservationService reservationService) {
         this.checkoutService = checkoutService;
         this.cartService = cartService;
         this.orderRepository = orderRepository;
-        this.vinylRepository = vinylRepository;
+        this.vinylSnapshotService = vinylSnapshotService;
+        this.reservationService = reservationService;
     }
 
     /**
@@ -79,16 +84,15 @@ public class CheckoutController {
                 OrderItem it = new OrderItem();
                 it.setVinylId(vinylId);
                 it.setQuantity(qty);
-                // copy vinyl details if available
-                vinylRepository.findById(vinylId).ifPresent(v -> {
-                    it.setTitle(v.getTitle());
-                    it.setArtist(v.getArtist());
-                    it.setPrice(v.getPrice());
-                    it.setCoverPath(v.getCoverPath());
-                });
                 items.add(it);
                 totalQt += qty;
             }
+            // hold the copies until the payment is settled or app.checkout.ttl.seconds pass
+            if (!reservationService.reserve(paymentId, StockService.quantitiesOf(items))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Not enough stock for one or more vinyls in cart");
+            }
+            // copy vinyl details for all lines in a single lookup
+            vinylSnapshotService.applyTo(items, false);
 
             // Create the order
             Order order = new Order();
@@ -106,22 +110,13 @@ public class CheckoutController {
             // Clear the cart after successful order creation
             cartService.clearCart(userId);
             
-            OrderResponseDTO response = new OrderResponseDTO(
-                savedOrder.getId(),
-                savedOrder.getUserId(),
-                savedOrder.getItems(),
-                savedOrder.getQt(),
-                savedOrder.getPaymentId(),
-                savedOrder.getOrderStatus(),
-                savedOrder.getIsPaymentConfirmed(),
-                savedOrder.getCreatedAt(),
-                savedOrder.getUpdatedAt()
-            );
+            OrderResponseDTO response = OrderResponseDTO.from(savedOrder);
             
             return ResponseEntity.status(HttpStatus.CREATED).body(new ResponseJSON<>("created", response));
         } catch (Exception e) {
-            // Clean up checkout marker on error
+            // Clean up checkout marker and stock hold on error
             checkoutService.clear(paymentId);
+            reservationService.release(paymentId);
             throw e;
         }
     }
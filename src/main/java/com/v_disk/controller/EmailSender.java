@@ -5,12 +5,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,22 +18,22 @@ import com.v_disk.model.EmailVerificationToken;
 import com.v_disk.model.User;
 import com.v_disk.repository.EmailVerificationTokenRepository;
 import com.v_disk.repository.UserRepository;
+import com.v_disk.service.EmailOutboxService;
 import com.v_disk.utils.ResponseJSON;
 
 @RestController
 @RequestMapping("/api/mail")
 public class EmailSender {
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
-
     private final UserRepository repo;
     private final EmailVerificationTokenRepository tokenRepo;
     private final String frontendUrl;
     private final long tokenTtlSeconds;
     private final String mailFrom;
+    private final EmailOutboxService emailOutbox;
 
     public EmailSender(UserRepository repo,
             EmailVerificationTokenRepository tokenRepo,
+            EmailOutboxService emailOutbox,
             @Value("${app.front.base-url:http://localhost}") String frontendUrl,
             @Value("${app.password_reset.ttl_seconds:3600}") long tokenTtlSeconds,
             @Value("${spring.mail.username:no-reply@v-disk.local}") String mailFrom) {
@@ -45,6 +42,7 @@ public class EmailSender {
         this.frontendUrl = frontendUrl;
         this.tokenTtlSeconds = tokenTtlSeconds;
         this.mailFrom = mailFrom;
+        this.emailOutbox = emailOutbox;
     }
 
     @GetMapping("/public")
@@ -54,32 +52,23 @@ public class EmailSender {
 
     @PostMapping("/test")
     public ResponseEntity<ResponseJSON<String>> send(@RequestParam String to) {
-        if (mailSender == null) {
+        if (!emailOutbox.isAvailable()) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(new ResponseJSON<>("error", "Mail service not configured"));
         }
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(to);
-        msg.setSubject("Welcome to V-disk!");
-        msg.setText("Your request has been validated.");
-        msg.setFrom("macedobeiramar@gmail.com");
-        mailSender.send(msg);
+        emailOutbox.enqueue(to, "macedobeiramar@gmail.com", "Welcome to V-disk!", "Your request has been validated.");
         return ResponseEntity.ok(new ResponseJSON<>("success", "OK"));
     }
 
     @PostMapping("/send")
     public ResponseEntity<ResponseJSON<String>> sendEmail(@RequestParam String to, @RequestParam String subject,
             @RequestParam String body) {
-        if (mailSender == null) {
+        if (!emailOutbox.isAvailable()) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(new ResponseJSON<>("error", "Mail service not configured"));
         }
         try {
-            SimpleMailMessage msg = new SimpleMailMessage();
-            msg.setTo(to);
-            msg.setSubject(subject);
-            msg.setText(body);
-            mailSender.send(msg);
+            emailOutbox.enqueue(to, null, subject, body);
             return ResponseEntity.ok(new ResponseJSON<>("success", null));
 
         } catch (Exception e) {
@@ -91,7 +80,7 @@ public class EmailSender {
 
     @PostMapping("/change-password")
     public ResponseEntity<ResponseJSON<String>> sendEmailToClient(@RequestParam String to) {
-        if (mailSender == null) {
+        if (!emailOutbox.isAvailable()) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(new ResponseJSON<>("error", "Mail service not configured"));
         }
@@ -116,13 +105,9 @@ public class EmailSender {
         String encoded = URLEncoder.encode(token, StandardCharsets.UTF_8);
         String link = frontendUrl + "?token=" + encoded;
 
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(user.getEmail());
-        msg.setSubject("Password change");
-        msg.setText("Click on the link below to change your actual password:\n\n" + link
+        emailOutbox.enqueue(user.getEmail(), mailFrom, "Password change",
+                "Click on the link below to change your actual password:\n\n" + link
                 + "\n\nIf you havent requested for, please ignore this email .");
-        msg.setFrom(mailFrom);
-        mailSender.send(msg);
         return ResponseEntity.ok(new ResponseJSON<>("success", "Changing email has been sent"));
     }
 
@@ -0,0 +1,188 @@
+package com.v_disk.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v_disk.dto.order.OrderResponseDTO;
+import com.v_disk.model.Order;
+import com.v_disk.model.User;
+import com.v_disk.model.Vinyl;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admin dumps streamed straight from a Mongo cursor to the response, one record
+ * per line (NDJSON or CSV), so memory stays flat whatever the collection size.
+ *
+ * Records are ordered by _id. If a download breaks, call again with
+ * {@code after=<last id received>} to resume where it stopped.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final String NDJSON = "ndjson";
+    private static final String CSV = "csv";
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int FLUSH_EVERY = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportController(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/orders")
+    public void exportOrders(@RequestParam(defaultValue = NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) throws IOException {
+        export(response, "orders", format, Order.class, buildQuery(from, to, after),
+                OrderResponseDTO::from,
+                List.of("id", "userId", "qt", "paymentId", "orderStatus", "isPaymentConfirmed", "createdAt", "updatedAt", "version", "items"),
+                o -> Arrays.<Object>asList(o.getId(), o.getUserId(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt(), o.getVersion(),
+                        o.getItems() == null ? "" : o.getItems().stream()
+                                .map(it -> it.getVinylId() + "x" + it.getQuantity())
+                                .collect(Collectors.joining(";"))));
+    }
+
+    @GetMapping("/vinyls")
+    public void exportVinyls(@RequestParam(defaultValue = NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) throws IOException {
+        export(response, "vinyls", format, Vinyl.class, buildQuery(from, to, after),
+                v -> v,
+                List.of("id", "title", "artist", "price", "stock", "coverPath", "isPrincipal", "createdAt", "updatedAt", "version"),
+                v -> Arrays.<Object>asList(v.getId(), v.getTitle(), v.getArtist(), v.getPrice(), v.getStock(), v.getCoverPath(), v.getIsPrincipal(), v.getCreatedAt(), v.getUpdatedAt(), v.getVersion()));
+    }
+
+    @GetMapping("/users")
+    public void exportUsers(@RequestParam(defaultValue = NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) throws IOException {
+        Query query = buildQuery(from, to, after);
+        // never read password hashes for an export
+        query.fields().exclude("password");
+        export(response, "users", format, User.class, query,
+                UserExportRow::from,
+                UserExportRow.COLUMNS,
+                u -> UserExportRow.from(u).cells());
+    }
+
+    // one projection for both formats, so NDJSON and CSV always carry the same fields
+    private record UserExportRow(String id, String name, String email, Set<String> roles,
+            boolean emailVerified, Instant createdAt, Long version) {
+
+        static final List<String> COLUMNS = List.of("id", "name", "email", "roles", "emailVerified", "createdAt", "version");
+
+        static UserExportRow from(User u) {
+            return new UserExportRow(u.getId(), u.getName(), u.getEmail(), u.getRoles() == null ? Set.of() : u.getRoles(),
+                    u.isEmailVerified(), u.getCreatedAt(), u.getVersion());
+        }
+
+        List<Object> cells() {
+            return Arrays.asList(id, name, email, String.join(";", roles), emailVerified, createdAt, version);
+        }
+    }
+
+    private static Query buildQuery(Instant from, Instant to, String after) {
+        Query q = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (from != null || to != null) {
+            Criteria created = Criteria.where("createdAt");
+            if (from != null) created = created.gte(from);
+            if (to != null) created = created.lt(to);
+            q.addCriteria(created);
+        }
+        if (after != null && !after.isBlank()) {
+            q.addCriteria(Criteria.where("_id").gt(after));
+        }
+        q.cursorBatchSize(CURSOR_BATCH_SIZE);
+        return q;
+    }
+
+    private <T> void export(HttpServletResponse response, String name, String format, Class<T> type, Query query,
+            Function<T, Object> toJson, List<String> csvHeader, Function<T, List<Object>> toCsvRow) throws IOException {
+        boolean csv = CSV.equalsIgnoreCase(format);
+        if (!csv && !NDJSON.equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + (csv ? ".csv" : ".ndjson") + "\"");
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (csv) {
+            writeCsvRow(out, List.copyOf(csvHeader));
+        }
+        long written = 0;
+        try (Stream<T> stream = mongoTemplate.stream(query, type)) {
+            Iterator<T> it = stream.iterator();
+            while (it.hasNext()) {
+                T doc = it.next();
+                if (csv) {
+                    writeCsvRow(out, toCsvRow.apply(doc));
+                } else {
+                    out.write(objectMapper.writeValueAsString(toJson.apply(doc)));
+                    out.write('\n');
+                }
+                if (++written % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeCsvRow(Writer out, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.write(',');
+            Object v = values.get(i);
+            if (v == null) continue;
+            String s = String.valueOf(v);
+            // text starting with = + - @ is evaluated as a formula by spreadsheet apps
+            if (v instanceof CharSequence && !s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0) {
+                s = "'" + s;
+            }
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(s.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(s);
+            }
+        }
+        out.write("\r\n");
+    }
+}
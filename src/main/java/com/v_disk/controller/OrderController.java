@@ -2,14 +2,17 @@ package com.v_disk.controller;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,56 +20,97 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.v_disk.dto.order.OrderCreateDTO;
 import com.v_disk.dto.order.OrderResponseDTO;
+import com.v_disk.dto.order.OrderSummaryDTO;
 import com.v_disk.dto.order.OrderUpdateDTO;
 import com.v_disk.model.Order;
-import com.v_disk.model.Vinyl;
 import com.v_disk.model.OrderItem;
+import com.v_disk.model.OrderStatus;
 import com.v_disk.repository.OrderRepository;
-import com.v_disk.repository.VinylRepository;
-import com.v_disk.service.CheckoutService;
+import com.v_disk.service.EmailOutboxService;
+import com.v_disk.service.PaymentEventService;
+import com.v_disk.service.StockReservationService;
+import com.v_disk.service.StockService;
+import com.v_disk.service.VinylCatalogService;
+import com.v_disk.service.VinylSnapshotService;
+import com.v_disk.utils.PageCursor;
 import com.v_disk.utils.ResponseJSON;
+import com.v_disk.utils.VersionedUpdate;
 
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
     private final OrderRepository repo;
-    private final VinylRepository vinylRepo;
-    private final CheckoutService checkoutService;
-    private final JavaMailSender mailSender;
+    private final VinylSnapshotService vinylSnapshotService;
+    private final PaymentEventService paymentEvents;
+    private final StockService stockService;
+    private final VinylCatalogService catalog;
+    private final StockReservationService reservationService;
+    private final EmailOutboxService emailOutbox;
     private final com.v_disk.repository.UserRepository userRepo;
+    private final MongoTemplate mongoTemplate;
 
-    public OrderController(OrderRepository repo, VinylRepository vinylRepo, CheckoutService checkoutService, JavaMailSender mailSender, com.v_disk.repository.UserRepository userRepo) {
+    public OrderController(OrderRepository repo, VinylSnapshotService vinylSnapshotService, PaymentEventService paymentEvents, StockService stockService, StockReservationService reservationService, VinylCatalogService catalog, EmailOutboxService emailOutbox, com.v_disk.repository.UserRepository userRepo, MongoTemplate mongoTemplate) {
         this.repo = repo;
-        this.vinylRepo = vinylRepo;
-        this.checkoutService = checkoutService;
-        this.mailSender = mailSender;
+        this.vinylSnapshotService = vinylSnapshotService;
+        this.paymentEvents = paymentEvents;
+        this.stockService = stockService;
+        this.catalog = catalog;
+        this.reservationService = reservationService;
+        this.emailOutbox = emailOutbox;
         this.userRepo = userRepo;
+        this.mongoTemplate = mongoTemplate;
     }
 
     
+    /**
+     * Admin listing: summaries only (no items), newest first, filtered by status, userId and
+     * createdAt range [from, to). Pages with the X-Next-Cursor header.
+     */
     @GetMapping
-    public ResponseEntity<ResponseJSON<List<OrderResponseDTO>>> list() {
-        List<OrderResponseDTO> all = repo.findAll()
-            .stream()
-            .map(o -> new OrderResponseDTO(o.getId(), o.getUserId(), o.getItems(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt()))
+    public ResponseEntity<ResponseJSON<List<OrderSummaryDTO>>> list(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        checkLimit(limit);
+        List<Order> fetched = repo.findSummaryPage(
+                status != null && !status.isBlank() ? status.trim().toUpperCase() : null,
+                userId != null && !userId.isBlank() ? userId : null,
+                from, to, decodeCursor(cursor), limit + 1);
+        List<Order> page = fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+        List<OrderSummaryDTO> body = page.stream()
+            .map(o -> new OrderSummaryDTO(o.getId(), o.getUserId(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt()))
             .collect(Collectors.toList());
-    return ResponseEntity.ok(new ResponseJSON<>("success", all));
+        return ResponseEntity.ok().headers(nextCursorHeaders(fetched, page, limit)).body(new ResponseJSON<>("success", body));
+    }
+
+    
+    @GetMapping("/{id}/items")
+    public ResponseEntity<ResponseJSON<List<OrderItem>>> items(@PathVariable String id) {
+        Order o = repo.findItemsById(id);
+        if (o == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found");
+        return ResponseEntity.ok(new ResponseJSON<>("success", o.getItems() != null ? o.getItems() : List.of()));
     }
 
     
     @GetMapping("/{id}")
     public ResponseEntity<ResponseJSON<OrderResponseDTO>> get(@PathVariable String id) {
         Order o = repo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
-    return ResponseEntity.ok(new ResponseJSON<>("success",  new OrderResponseDTO(o.getId(), o.getUserId(), o.getItems(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt())));
+    return ResponseEntity.ok(new ResponseJSON<>("success",  OrderResponseDTO.from(o)));
     }
 
     
@@ -92,38 +136,24 @@ public class OrderController {
         if (dto.orderStatus() != null) o.setOrderStatus(dto.orderStatus());
         o.setCreatedAt(Instant.now());
     
-        if (o.getItems() != null) {
-            for (OrderItem it : o.getItems()) {
-                if ((it.getTitle() == null || it.getTitle().isBlank()) && it.getVinylId() != null) {
-                    vinylRepo.findById(it.getVinylId()).ifPresent(v -> {
-                        it.setTitle(v.getTitle());
-                        it.setArtist(v.getArtist());
-                        it.setPrice(v.getPrice());
-                        it.setCoverPath(v.getCoverPath());
-                    });
-                }
-            }
-        }
+        // fill missing vinyl details for all lines in a single lookup
+        vinylSnapshotService.applyTo(o.getItems(), true);
 
         Order saved = repo.save(o);
-        OrderResponseDTO resp = new OrderResponseDTO(saved.getId(), saved.getUserId(), saved.getItems(), saved.getQt(), saved.getPaymentId(), saved.getOrderStatus(), saved.getIsPaymentConfirmed(), saved.getCreatedAt(), saved.getUpdatedAt());
+        OrderResponseDTO resp = OrderResponseDTO.from(saved);
 
        
         try {
             userRepo.findById(saved.getUserId()).ifPresent(u -> {
                 if (u.getEmail() != null && !u.getEmail().isBlank()) {
-                    SimpleMailMessage msg = new SimpleMailMessage();
-                    msg.setTo(u.getEmail());
-                    msg.setSubject("Order confirmation " + saved.getId());
                     String itemsText = "";
                     if (saved.getItems() != null) {
                         itemsText = saved.getItems().stream()
                             .map(it -> (it.getTitle() != null ? it.getTitle() : it.getVinylId()) + " (x" + it.getQuantity() + ")")
                             .collect(Collectors.joining("\n"));
                     }
-                    msg.setText("Your order has been receveid. Request Order: " + saved.getId() + "\nItems:\n" + itemsText);
-                    msg.setFrom("no-reply@v-disk.local");
-                    mailSender.send(msg);
+                    emailOutbox.enqueue(u.getEmail(), "no-reply@v-disk.local", "Order confirmation " + saved.getId(),
+                            "Your order has been receveid. Request Order: " + saved.getId() + "\nItems:\n" + itemsText);
                 }
             });
         } catch (Exception e) {
@@ -136,16 +166,23 @@ public class OrderController {
     
     @PatchMapping("/{id}")
     public ResponseEntity<ResponseJSON<OrderResponseDTO>> update(@PathVariable String id, @RequestBody @Valid OrderUpdateDTO dto) {
-        Order o = repo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
-    if (dto.userId() != null) o.setUserId(dto.userId());
-    if (dto.items() != null) o.setItems(dto.items());
-    if (dto.paymentId() != null) o.setPaymentId(dto.paymentId());
-    if (dto.orderStatus() != null) o.setOrderStatus(dto.orderStatus());
-    if (dto.isPaymentConfirmed() != null) o.setIsPaymentConfirmed(dto.isPaymentConfirmed());
-    if (dto.qt() != null && dto.qt() > 0) o.setQt(dto.qt());
-    o.setUpdatedAt(Instant.now());
-        Order saved = repo.save(o);
-    return ResponseEntity.ok(new ResponseJSON<>("success", new OrderResponseDTO(saved.getId(), saved.getUserId(), saved.getItems(), saved.getQt(), saved.getPaymentId(), saved.getOrderStatus(), saved.getIsPaymentConfirmed(), saved.getCreatedAt(), saved.getUpdatedAt())));
+        // status changes carry side effects (stock, holds, emails) and only go through the payment endpoints
+        if (dto.orderStatus() != null || dto.isPaymentConfirmed() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "orderStatus and isPaymentConfirmed are set through /api/orders/payment/{paymentId}/approve|fail|cancel");
+        }
+        // $set only what the patch carries, items are not rewritten unless sent
+        Update u = new Update().set("updatedAt", Instant.now());
+        if (dto.userId() != null) u.set("userId", dto.userId());
+        if (dto.items() != null) {
+            Order recount = new Order();
+            recount.setItems(dto.items());
+            u.set("items", dto.items()).set("qt", recount.getQt());
+        }
+        if (dto.paymentId() != null) u.set("paymentId", dto.paymentId());
+        if (dto.qt() != null && dto.qt() > 0) u.set("qt", dto.qt());
+        Order saved = VersionedUpdate.apply(mongoTemplate, Order.class, id, dto.version(), u, true);
+        return ResponseEntity.ok(new ResponseJSON<>("success", OrderResponseDTO.from(saved)));
     }
 
     
@@ -158,66 +195,93 @@ public class OrderController {
 
     
     @GetMapping("/by-customer/{userId}")
-    public ResponseEntity<ResponseJSON<List<OrderResponseDTO>>> listByCustomer(@PathVariable String userId) {
-        List<OrderResponseDTO> all = repo.findByUserId(userId).stream().map(o -> new OrderResponseDTO(o.getId(), o.getUserId(), o.getItems(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt())).collect(Collectors.toList());
-        return ResponseEntity.ok(new ResponseJSON<>("success", all));
+    public ResponseEntity<ResponseJSON<List<OrderResponseDTO>>> listByCustomer(@PathVariable String userId,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            List<OrderResponseDTO> all = repo.findByUserId(userId).stream().map(this::toDTO).collect(Collectors.toList());
+            return ResponseEntity.ok(new ResponseJSON<>("success", all));
+        }
+        return page(userId, limit, cursor);
     }
 
-    
-    @PostMapping("/payment/{paymentId}/approve")
-    public ResponseEntity<ResponseJSON<OrderResponseDTO>> approvePayment(@PathVariable String paymentId) {
-        Order o = repo.findByPaymentId(paymentId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found for paymentId"));
+    // Keyset page (newest first); the next cursor is returned in the X-Next-Cursor header
+    private ResponseEntity<ResponseJSON<List<OrderResponseDTO>>> page(String userId, Integer limit, String cursor) {
+        int size = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        checkLimit(size);
+        List<Order> fetched = repo.findPage(userId, decodeCursor(cursor), size + 1);
+        List<Order> page = fetched.size() > size ? fetched.subList(0, size) : fetched;
+        List<OrderResponseDTO> body = page.stream().map(this::toDTO).collect(Collectors.toList());
+        return ResponseEntity.ok().headers(nextCursorHeaders(fetched, page, size)).body(new ResponseJSON<>("success", body));
+    }
 
-        boolean createdMarker = checkoutService.tryCreateMarker(paymentId);
-        if (!createdMarker) {
-            return ResponseEntity.ok(new ResponseJSON<OrderResponseDTO>("already_processed", new OrderResponseDTO(o.getId(), o.getUserId(), o.getItems(), o.getQt(), o.getPaymentId(), o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt())));
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
         }
+    }
 
-        if (o.getItems() != null) {
-            for (OrderItem orderedItem : o.getItems()) {
-                String vid = orderedItem.getVinylId();
-                Vinyl v = vinylRepo.findById(vid).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Vinyl not found: " + vid));
-                Integer needed = orderedItem.getQuantity() != null ? orderedItem.getQuantity() : 1;
-                if (v.getStock() == null || v.getStock() < needed) {
-                    checkoutService.clear(paymentId);
-                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Out of stock for vinyl: " + vid);
-                }
-            }
+    private static PageCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 
-            for (OrderItem orderedItem : o.getItems()) {
-                String vid = orderedItem.getVinylId();
-                Integer needed = orderedItem.getQuantity() != null ? orderedItem.getQuantity() : 1;
-                Vinyl v = vinylRepo.findById(vid).get();
-                v.setStock(v.getStock() - needed);
-                v.setUpdatedAt(Instant.now());
-                vinylRepo.save(v);
-            }
+    private static HttpHeaders nextCursorHeaders(List<Order> fetched, List<Order> page, int limit) {
+        HttpHeaders headers = new HttpHeaders();
+        if (fetched.size() > limit) {
+            Order last = page.get(page.size() - 1);
+            headers.set(VinylController.NEXT_CURSOR_HEADER, new PageCursor(last.getCreatedAt(), last.getId()).encode());
         }
+        return headers;
+    }
 
-        o.setOrderStatus("CONFIRMED");
-        o.setIsPaymentConfirmed(true);
-        o.setUpdatedAt(Instant.now());
-        Order saved = repo.save(o);
-        return ResponseEntity.ok(new ResponseJSON<>("success", new OrderResponseDTO(saved.getId(), saved.getUserId(), saved.getItems(), saved.getQt(), saved.getPaymentId(), saved.getOrderStatus(), saved.getIsPaymentConfirmed(), saved.getCreatedAt(), saved.getUpdatedAt())));
+    private OrderResponseDTO toDTO(Order o) {
+        return OrderResponseDTO.from(o);
+    }
+
+    
+    @PostMapping("/payment/{paymentId}/approve")
+    public ResponseEntity<ResponseJSON<OrderResponseDTO>> approvePayment(@PathVariable String paymentId) {
+        return paymentResponse(paymentEvents.transition(paymentId, OrderStatus.CONFIRMED, o -> {
+            // one guarded bulk decrement for all items, rolled back entirely if any vinyl lacks stock
+            Map<String, Integer> quantities = StockService.quantitiesOf(o.getItems());
+            if (!stockService.decrement(paymentId, quantities)) {
+                reservationService.release(paymentId);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Out of stock for one or more vinyls in order");
+            }
+            // Past this point the decrement is applied and its tag cleared: nothing may throw, or the
+            // rollback would put the order back to PENDING and the retry would decrement again.
+            // A hold that is not committed here still expires through its TTL and the sweeper.
+            try {
+                reservationService.commit(paymentId);
+            } catch (RuntimeException e) {
+                log.warn("Could not release stock hold for payment {} after approval: {}", paymentId, e.getMessage());
+            }
+            try {
+                vinylSnapshotService.evict(quantities.keySet());
+                catalog.evictVinyls(quantities.keySet());
+            } catch (RuntimeException e) {
+                log.warn("Could not evict cached vinyls after approval of payment {}: {}", paymentId, e.getMessage());
+            }
+        }));
     }
 
     @PostMapping("/payment/{paymentId}/fail")
     public ResponseEntity<ResponseJSON<OrderResponseDTO>> failPayment(@PathVariable String paymentId) {
-        Order o = repo.findByPaymentId(paymentId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found for paymentId"));
-        o.setOrderStatus("FAILED");
-        o.setIsPaymentConfirmed(false);
-        o.setUpdatedAt(Instant.now());
-        Order saved = repo.save(o);
-        return ResponseEntity.ok(new ResponseJSON<>("success", new OrderResponseDTO(saved.getId(), saved.getUserId(), saved.getItems(), saved.getQt(), saved.getPaymentId(), saved.getOrderStatus(), saved.getIsPaymentConfirmed(), saved.getCreatedAt(), saved.getUpdatedAt())));
+        return paymentResponse(paymentEvents.transition(paymentId, OrderStatus.FAILED,
+                o -> reservationService.release(paymentId)));
     }
 
     @PostMapping("/payment/{paymentId}/cancel")
     public ResponseEntity<ResponseJSON<OrderResponseDTO>> cancelPayment(@PathVariable String paymentId) {
-        Order o = repo.findByPaymentId(paymentId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found for paymentId"));
-        o.setOrderStatus("CANCELED");
-        o.setIsPaymentConfirmed(false);
-        o.setUpdatedAt(Instant.now());
-        Order saved = repo.save(o);
-        return ResponseEntity.ok(new ResponseJSON<>("success", new OrderResponseDTO(saved.getId(), saved.getUserId(), saved.getItems(), saved.getQt(), saved.getPaymentId(), saved.getOrderStatus(), saved.getIsPaymentConfirmed(), saved.getCreatedAt(), saved.getUpdatedAt())));
+        return paymentResponse(paymentEvents.transition(paymentId, OrderStatus.CANCELED,
+                o -> reservationService.release(paymentId)));
+    }
+
+    private static ResponseEntity<ResponseJSON<OrderResponseDTO>> paymentResponse(PaymentEventService.Outcome outcome) {
+        return ResponseEntity.ok(new ResponseJSON<>(outcome.duplicate() ? "already_processed" : "success", outcome.order()));
     }
 }
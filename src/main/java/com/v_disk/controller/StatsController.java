@@ -0,0 +1,38 @@
+package com.v_disk.controller;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.v_disk.utils.ResponseJSON;
+import com.v_disk.utils.StatsContributor;
+
+// Admin-only runtime counters for the in-process caches and workers
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final List<StatsContributor> contributors;
+
+    public StatsController(List<StatsContributor> contributors) {
+        this.contributors = contributors.stream()
+                .sorted(Comparator.comparing(StatsContributor::statsName))
+                .toList();
+    }
+
+    @GetMapping
+    public ResponseEntity<ResponseJSON<Map<String, Object>>> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (StatsContributor c : contributors) {
+            out.put(c.statsName(), c.stats());
+        }
+        return ResponseEntity.ok(new ResponseJSON<>("success", out));
+    }
+}
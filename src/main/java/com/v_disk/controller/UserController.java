@@ -5,6 +5,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,7 +30,11 @@ import com.v_disk.model.EmailVerificationToken;
 import com.v_disk.model.User;
 import com.v_disk.repository.UserRepository;
 import com.v_disk.service.EmailVerificationService;
+import com.v_disk.service.PrincipalCacheService;
+import com.v_disk.service.RefreshTokenService;
+import com.v_disk.service.TokenRevocationService;
 import com.v_disk.utils.ResponseJSON;
+import com.v_disk.utils.VersionedUpdate;
 
 import jakarta.validation.Valid;
 
@@ -37,13 +44,23 @@ public class UserController {
     private final UserRepository repo;
     private final PasswordEncoder passwordEncoder;
     private final EmailVerificationService emailVerificationService;
+    private final PrincipalCacheService principalCacheService;
+    private final MongoTemplate mongoTemplate;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UserController.class);
 
     public UserController(UserRepository repo, PasswordEncoder passwordEncoder,
-            EmailVerificationService emailVerificationService) {
+            EmailVerificationService emailVerificationService, PrincipalCacheService principalCacheService,
+            MongoTemplate mongoTemplate, RefreshTokenService refreshTokenService,
+            TokenRevocationService tokenRevocationService) {
         this.repo = repo;
         this.passwordEncoder = passwordEncoder;
         this.emailVerificationService = emailVerificationService;
+        this.principalCacheService = principalCacheService;
+        this.mongoTemplate = mongoTemplate;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @GetMapping
@@ -63,7 +80,8 @@ public class UserController {
                 user.getName(),
                 user.getEmail(),
                 roles,
-                user.isEmailVerified());
+                user.isEmailVerified(),
+                user.getVersion());
     }
 
     @GetMapping("/{id}")
@@ -144,33 +162,59 @@ public class UserController {
     @PatchMapping("/{id}")
     public ResponseEntity<ResponseJSON<UserResponseDTO>> update(@PathVariable String id,
             @RequestBody @Valid UserUpdateDTO dto) {
-        User user = repo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        Update u = new Update();
         if (dto.name() != null) {
-            user.setName(dto.name());
+            u.set("name", dto.name());
         }
         if (dto.email() != null) {
-            user.setEmail(dto.email());
+            u.set("email", dto.email());
         }
         if (dto.password() != null) {
-            user.setPassword(passwordEncoder.encode((dto.password())));
+            u.set("password", passwordEncoder.encode((dto.password())));
         }
         if (dto.roles() != null) {
-            user.setRoles(new HashSet<>(dto.roles()));
+            u.set("roles", new HashSet<>(dto.roles()));
         }
         if (dto.emailVerified() != null) {
-            user.setEmailVerified(dto.emailVerified());
+            u.set("emailVerified", dto.emailVerified());
+        }
+        // the previous document is returned so the old email's principal can be evicted
+        User previous;
+        try {
+            previous = VersionedUpdate.apply(mongoTemplate, User.class, id, dto.version(), u, false);
+        } catch (DuplicateKeyException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already in use");
+        }
+        // cached principals carry roles/password/enabled flag, drop them for both old and new email
+        principalCacheService.evict(previous.getEmail());
+        if (dto.email() != null) {
+            principalCacheService.evict(dto.email());
         }
-        repo.save(user);
-        return ResponseEntity.ok(new ResponseJSON<>("Edited Successfully", toDTO(user)));
+        if (dto.password() != null) {
+            refreshTokenService.revokeAll(id);
+        }
+        // outstanding access tokens carry the old email/roles as claims
+        if (dto.password() != null || dto.email() != null || dto.roles() != null
+                || Boolean.FALSE.equals(dto.emailVerified())) {
+            tokenRevocationService.revokeUser(id);
+        }
+        return ResponseEntity.ok(new ResponseJSON<>("Edited Successfully", new UserResponseDTO(
+                previous.getId(),
+                dto.name() != null ? dto.name() : previous.getName(),
+                dto.email() != null ? dto.email() : previous.getEmail(),
+                dto.roles() != null ? dto.roles() : (previous.getRoles() == null ? Set.of() : previous.getRoles()),
+                dto.emailVerified() != null ? dto.emailVerified() : previous.isEmailVerified(),
+                previous.getVersion() == null ? 1L : previous.getVersion() + 1)));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<ResponseJSON<String>> delete(@PathVariable String id) {
-        if (!repo.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-        }
+        User user = repo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         repo.deleteById(id);
+        principalCacheService.evict(user.getEmail());
+        refreshTokenService.revokeAll(id);
+        tokenRevocationService.revokeUser(id);
         return ResponseEntity.ok(new ResponseJSON<>("Deleted Successfully", id));
     }
 
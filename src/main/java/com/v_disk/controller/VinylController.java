@@ -1,9 +1,13 @@
 package com.v_disk.controller;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.Instant;
 import java.util.List;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,46 +22,125 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.v_disk.dto.vinyl.VinylAdjustmentDTO;
+import com.v_disk.dto.vinyl.VinylAdjustmentResultDTO;
 import com.v_disk.dto.vinyl.VinylCreateDTO;
 import com.v_disk.dto.vinyl.VinylUpdateDTO;
+import com.v_disk.model.ImportJob;
 import com.v_disk.model.Vinyl;
 import com.v_disk.repository.VinylRepository;
+import com.v_disk.service.PrincipalVinylCache;
+import com.v_disk.service.VinylAdjustmentService;
+import com.v_disk.service.VinylCatalogService;
+import com.v_disk.service.VinylImportService;
+import com.v_disk.service.VinylSnapshotService;
+import com.v_disk.utils.PageCursor;
 import com.v_disk.utils.ResponseJSON;
+import com.v_disk.utils.VersionedUpdate;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/vinyls")
 public class VinylController {
-    private final VinylRepository repo;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int MAX_PAGE_SIZE = 100;
 
-    public VinylController(VinylRepository repo) {
+    private final VinylRepository repo;
+    private final VinylSnapshotService vinylSnapshotService;
+    private final VinylCatalogService catalog;
+    private final PrincipalVinylCache principalVinylCache;
+    private final VinylImportService vinylImportService;
+    private final VinylAdjustmentService vinylAdjustmentService;
+    private final MongoTemplate mongoTemplate;
+
+    public VinylController(VinylRepository repo, VinylSnapshotService vinylSnapshotService, VinylCatalogService catalog,
+            PrincipalVinylCache principalVinylCache, VinylImportService vinylImportService,
+            VinylAdjustmentService vinylAdjustmentService, MongoTemplate mongoTemplate) {
         this.repo = repo;
+        this.vinylSnapshotService = vinylSnapshotService;
+        this.catalog = catalog;
+        this.principalVinylCache = principalVinylCache;
+        this.vinylImportService = vinylImportService;
+        this.vinylAdjustmentService = vinylAdjustmentService;
+        this.mongoTemplate = mongoTemplate;
     }
 
+    /**
+     * Lists vinyls ordered by creation. Pass the X-Next-Cursor header of a response as
+     * {@code cursor} to get the next page; {@code offset} is kept for older clients.
+     */
     @GetMapping
     public ResponseEntity<ResponseJSON<List<Vinyl>>> list(@RequestParam(defaultValue = "10") int limit,
-            @RequestParam(defaultValue = "0") int offset) {
-        List<Vinyl> all = repo.findAll(PageRequest.of(offset / limit, limit)).getContent();
-        return ResponseEntity.ok(new ResponseJSON<>("Listed successfully", all));
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean count) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        List<Vinyl> page;
+        if (offset != null && cursor == null) {
+            page = catalog.list(limit, Math.max(0, offset));
+        } else {
+            List<Vinyl> fetched = catalog.page(limit, decodeCursor(cursor));
+            page = fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+            if (fetched.size() > limit) {
+                Vinyl last = page.get(page.size() - 1);
+                headers.set(NEXT_CURSOR_HEADER, new PageCursor(last.getCreatedAt(), last.getId()).encode());
+            }
+        }
+        if (count) {
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(repo.count()));
+        }
+        return ResponseEntity.ok().headers(headers).body(new ResponseJSON<>("Listed successfully", page));
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ResponseJSON<List<Vinyl>>> search(@RequestParam("term") String term) {
-        List<Vinyl> result = repo.findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(term, term);
+    public ResponseEntity<ResponseJSON<List<Vinyl>>> search(@RequestParam("term") String term,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") int page) {
+        if (term == null || term.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "term is required");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE || page < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit or page");
+        }
+        List<Vinyl> result = catalog.search(term, page, limit);
         return ResponseEntity.ok(new ResponseJSON<>("Search results", result));
     }
 
+    @GetMapping("/search/suggest")
+    public ResponseEntity<ResponseJSON<List<Vinyl>>> suggest(@RequestParam("prefix") String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        if (prefix == null || prefix.trim().length() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "prefix must have at least 2 characters");
+        }
+        List<Vinyl> result = catalog.suggest(prefix, Math.min(Math.max(limit, 1), 20));
+        return ResponseEntity.ok(new ResponseJSON<>("Suggestions", result));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ResponseJSON<Vinyl>> get(@PathVariable String id) {
-        Vinyl v = repo.findById(id)
+        Vinyl v = catalog.get(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Vinyl not found"));
         return ResponseEntity.ok(new ResponseJSON<>("Listed one successfully", v));
     }
 
     @GetMapping("/principal")
     public ResponseEntity<ResponseJSON<List<Vinyl>>> getPrincipal() {
-        List<Vinyl> result = repo.findByIsPrincipalTrue(true);
+        List<Vinyl> result = principalVinylCache.get();
         if (result == null || result.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vinyl not found");
         }
@@ -75,39 +158,83 @@ public class VinylController {
         v.setCoverPath(dto.coverPath());
         v.setGallery(dto.gallery());
         v.setIsPrincipal(Boolean.FALSE);
+        v.setCreatedAt(Instant.now());
         Vinyl saved = repo.save(v);
+        catalog.evictVinyl(saved.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(new ResponseJSON<>("Created Successfully", saved));
     }
 
+    /**
+     * Starts a background import of a CSV or NDJSON body (format from the query
+     * parameter or the Content-Type). Poll the returned job for progress.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ResponseJSON<ImportJob>> importVinyls(@RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        String resolved = format;
+        if (resolved == null || resolved.isBlank()) {
+            String contentType = request.getContentType();
+            resolved = contentType != null && contentType.toLowerCase().contains("csv") ? VinylImportService.CSV : VinylImportService.NDJSON;
+        }
+        resolved = resolved.trim().toLowerCase();
+        if (!VinylImportService.CSV.equals(resolved) && !VinylImportService.NDJSON.equals(resolved)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        }
+        ImportJob job = vinylImportService.start(request.getInputStream(), resolved);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/vinyls/import/" + job.getId()))
+                .body(new ResponseJSON<>("Import started", job));
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ResponseJSON<ImportJob>> importStatus(@PathVariable String jobId) {
+        ImportJob job = vinylImportService.find(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job not found"));
+        return ResponseEntity.ok(new ResponseJSON<>("ok", job));
+    }
+
+    /**
+     * Applies stock deltas and price changes in one bulk write. Items whose
+     * expectedVersion no longer matches, or whose stock would go negative, are
+     * skipped and listed in the summary.
+     */
+    @PostMapping("/adjustments")
+    public ResponseEntity<ResponseJSON<VinylAdjustmentResultDTO>> adjust(@RequestBody List<@Valid VinylAdjustmentDTO> items) {
+        VinylAdjustmentResultDTO result = vinylAdjustmentService.apply(items);
+        return ResponseEntity.ok(new ResponseJSON<>("Adjustments applied", result));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<ResponseJSON<Vinyl>> update(@PathVariable String id, @RequestBody @Valid VinylUpdateDTO dto) {
-        Vinyl v = repo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Vinyl not found"));
+        // $set only the patched fields, gallery and the rest of the document are left untouched
+        Update u = new Update().set("updatedAt", Instant.now());
         if (dto.title() != null) {
-            v.setTitle(dto.title());
+            u.set("title", dto.title()).set("titleKey", Vinyl.searchKey(dto.title()))
+                    .set("titleWords", Vinyl.searchWords(dto.title()));
         }
         if (dto.artist() != null) {
-            v.setArtist(dto.artist());
+            u.set("artist", dto.artist()).set("artistKey", Vinyl.searchKey(dto.artist()))
+                    .set("artistWords", Vinyl.searchWords(dto.artist()));
         }
         if (dto.stock() != null) {
-            v.setStock(dto.stock());
+            u.set("stock", dto.stock());
         }
         if (dto.price() != null) {
-            v.setPrice(dto.price());
+            u.set("price", dto.price());
         }
         if (dto.coverPath() != null) {
-            v.setCoverPath(dto.coverPath());
+            u.set("coverPath", dto.coverPath());
         }
         if (dto.gallery() != null) {
-            v.setGallery(dto.gallery());
+            u.set("gallery", dto.gallery());
         }
         if (dto.isPrincipal() != null) {
-            v.setIsPrincipal(dto.isPrincipal());
+            u.set("isPrincipal", dto.isPrincipal());
         }
 
-        v.setUpdatedAt(Instant.now());
-
-        Vinyl saved = repo.save(v);
+        Vinyl saved = VersionedUpdate.apply(mongoTemplate, Vinyl.class, id, dto.version(), u, true);
+        vinylSnapshotService.evict(id);
+        catalog.evictVinyl(id);
         return ResponseEntity.ok(new ResponseJSON<>("Edited Successfully", saved));
     }
 
@@ -117,6 +244,8 @@ public class VinylController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vinyl not found");
         }
         repo.deleteById(id);
+        vinylSnapshotService.evict(id);
+        catalog.evictVinyl(id);
         return ResponseEntity.ok(new ResponseJSON<>("Deleted Successfully", id));
     }
 
@@ -0,0 +1,16 @@
+package com.v_disk.dto.cart;
+
+import java.math.BigDecimal;
+
+// available=false when the vinyl no longer exists or has less stock than requested
+public record CartLineDTO(
+    String vinylId,
+    String title,
+    String artist,
+    BigDecimal price,
+    String coverPath,
+    Integer stock,
+    Integer quantity,
+    BigDecimal lineTotal,
+    boolean available
+) {}
@@ -0,0 +1,11 @@
+package com.v_disk.dto.cart;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+// op: set | inc | remove | clear  (vinylId not needed for clear, quantity only for set/inc)
+public record CartOperationDTO(
+    @NotBlank @Pattern(regexp = "set|inc|remove|clear", message = "op must be set, inc, remove or clear") String op,
+    String vinylId,
+    Integer quantity
+) {}
@@ -0,0 +1,11 @@
+package com.v_disk.dto.cart;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CartViewDTO(
+    String userId,
+    List<CartLineDTO> lines,
+    Integer itemCount,
+    BigDecimal subtotal
+) {}
@@ -3,6 +3,7 @@ package com.v_disk.dto.order;
 import java.time.Instant;
 import java.util.List;
 
+import com.v_disk.model.Order;
 import com.v_disk.model.OrderItem;
 
 public record OrderResponseDTO(
@@ -14,5 +15,11 @@ public record OrderResponseDTO(
     String orderStatus,
     Boolean isPaymentConfirmed,
     Instant createdAt,
-    Instant updatedAt
-) {}
+    Instant updatedAt,
+    Long version
+) {
+    public static OrderResponseDTO from(Order o) {
+        return new OrderResponseDTO(o.getId(), o.getUserId(), o.getItems(), o.getQt(), o.getPaymentId(),
+                o.getOrderStatus(), o.getIsPaymentConfirmed(), o.getCreatedAt(), o.getUpdatedAt(), o.getVersion());
+    }
+}
@@ -0,0 +1,14 @@
+package com.v_disk.dto.order;
+
+import java.time.Instant;
+
+public record OrderSummaryDTO(
+    String id,
+    String userId,
+    Integer qt,
+    String paymentId,
+    String orderStatus,
+    Boolean isPaymentConfirmed,
+    Instant createdAt,
+    Instant updatedAt
+) {}
@@ -10,6 +10,7 @@ public record OrderUpdateDTO (
     Integer qt,
     String paymentId,
     String orderStatus,
-    Boolean isPaymentConfirmed
+    Boolean isPaymentConfirmed,
+    Long version
 
 ) {}
@@ -7,6 +7,7 @@ public record UserResponseDTO(
         String name,
         String email,
         Set<String> roles,
-        Boolean emailVerified) {
+        Boolean emailVerified,
+        Long version) {
 
 }
@@ -10,7 +10,8 @@ public record UserUpdateDTO(
     @Email String email,
     Set<String> roles,
     @Size (min = 6, max = 24) String password,
-    Boolean emailVerified
+    Boolean emailVerified,
+    Long version
 ){}
 
 
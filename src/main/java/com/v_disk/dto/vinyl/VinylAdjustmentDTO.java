@@ -0,0 +1,15 @@
+package com.v_disk.dto.vinyl;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+// stockDelta is added to the current stock, price replaces it; expectedVersion is optional
+public record VinylAdjustmentDTO(
+    @NotBlank String vinylId,
+    Integer stockDelta,
+    @DecimalMin("0.0") BigDecimal price,
+    @Min(0) Long expectedVersion
+) {}
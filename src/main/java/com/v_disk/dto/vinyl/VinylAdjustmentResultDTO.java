@@ -0,0 +1,15 @@
+package com.v_disk.dto.vinyl;
+
+import java.util.List;
+
+public record VinylAdjustmentResultDTO(
+    int requested,
+    int applied,
+    int versionConflicts,
+    int insufficientStock,
+    int notFound,
+    List<Failure> failures
+) {
+    // reason: NOT_FOUND | VERSION_CONFLICT | INSUFFICIENT_STOCK
+    public record Failure(String vinylId, String reason, Long currentVersion, Integer currentStock) {}
+}
@@ -10,5 +10,7 @@ public record VinylUpdateDTO(
     Integer stock,
     String coverPath,
     List<String> gallery,
-    Boolean isPrincipal
+    Boolean isPrincipal,
+    // version the client last read; when set, a concurrent edit makes the patch fail with 409
+    Long version
 ) {}
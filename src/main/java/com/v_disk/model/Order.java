@@ -5,19 +5,31 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "orders")
+@CompoundIndexes({
+    @CompoundIndex(name = "createdAt_id_idx", def = "{ 'createdAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "userId_createdAt_id_idx", def = "{ 'userId': 1, 'createdAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "status_createdAt_id_idx", def = "{ 'orderStatus': 1, 'createdAt': -1, '_id': -1 }")
+})
 public class Order {
     private String id;
     private String userId;
     private List<com.v_disk.model.OrderItem> items;
     private Integer qt;
+    @Indexed(name = "paymentId_idx", sparse = true)
     private String paymentId;
     private Boolean isPaymentConfirmed;
     private String orderStatus;
     private Instant createdAt;
     private Instant updatedAt;
+    @Version
+    private Long version;
 
    public String getId() {
        return id;
@@ -93,4 +105,12 @@ public class Order {
    public void setUpdatedAt(Instant updatedAt) {
        this.updatedAt = updatedAt;
    }
+
+   public Long getVersion() {
+       return version;
+   }
+
+   public void setVersion(Long version) {
+       this.version = version;
+   }
 }
@@ -0,0 +1,38 @@
+package com.v_disk.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Order lifecycle driven by the payment callbacks.
+ * PENDING -> CONFIRMED | FAILED | CANCELED, FAILED -> CONFIRMED | CANCELED (retried or abandoned payment).
+ * CONFIRMED and CANCELED are final.
+ */
+public enum OrderStatus {
+    PENDING,
+    CONFIRMED,
+    FAILED,
+    CANCELED;
+
+    public Set<OrderStatus> next() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(CONFIRMED, FAILED, CANCELED);
+            case FAILED -> EnumSet.of(CONFIRMED, CANCELED);
+            case CONFIRMED, CANCELED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return next().contains(target);
+    }
+
+    // null is treated as PENDING (orders created without a status); unknown values return null
+    public static OrderStatus from(String value) {
+        if (value == null || value.isBlank()) return PENDING;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
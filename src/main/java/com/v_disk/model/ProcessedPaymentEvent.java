@@ -0,0 +1,87 @@
+package com.v_disk.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One document per handled payment callback; the _id (paymentId:STATUS) is the dedupe key
+@Document(collection = "processed_payment_events")
+public class ProcessedPaymentEvent {
+
+    public static final String PROCESSING = "PROCESSING";
+    public static final String PROCESSED = "PROCESSED";
+
+    @Id
+    private String id;
+
+    @Indexed(name = "paymentId_idx")
+    private String paymentId;
+
+    private String transition;
+    private String orderId;
+    private String state;
+    private Instant claimedAt;
+    private Instant processedAt;
+
+    public static String idFor(String paymentId, OrderStatus target) {
+        return paymentId + ":" + target.name();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(String paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public String getTransition() {
+        return transition;
+    }
+
+    public void setTransition(String transition) {
+        this.transition = transition;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(Instant claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(Instant processedAt) {
+        this.processedAt = processedAt;
+    }
+}
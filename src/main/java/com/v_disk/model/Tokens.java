@@ -3,6 +3,8 @@ package com.v_disk.model;
 public class Tokens {
     public static final String AUTH_TOKEN = "auth_token";
     public static final String REFRESH_TOKEN = "refresh_token";
+    // issue time in epoch millis; iat only has second precision
+    public static final String ISSUED_AT_MILLIS = "iatMs";
 
 
     
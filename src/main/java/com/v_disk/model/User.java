@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.Set;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -20,6 +21,8 @@ public class User {
     private Set<String> roles;
     private boolean emailVerified;
     private Instant createdAt = Instant.now();
+    @Version
+    private Long version;
 
     public String getId() {
         return id;
@@ -67,4 +70,10 @@ public class User {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -2,25 +2,77 @@ package com.v_disk.model;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
-@Document(collection = "vinyls")
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// language "none": no stemming or stop words, band names like "The Who" stay searchable
+@Document(collection = "vinyls", language = "none")
+@CompoundIndexes({
+    @CompoundIndex(name = "createdAt_id_idx", def = "{ 'createdAt': 1, '_id': 1 }"),
+    // natural key used by the bulk import upserts; unique so concurrent upserts cannot both insert
+    @CompoundIndex(name = "titleKey_artistKey_idx", def = "{ 'titleKey': 1, 'artistKey': 1 }", unique = true)
+})
 public class Vinyl {
     @Id
     private String id;
+    @TextIndexed(weight = 3)
     private String title;
+    @TextIndexed(weight = 2)
     private String artist;
     private BigDecimal price;
     private Integer stock;
     private String coverPath;
     private List<String> gallery;
     private Boolean isPrincipal = Boolean.FALSE;
-    private Instant createdAt = Instant.now();
+    // set on insert (create, import) and backfilled from the ObjectId for older documents
+    private Instant createdAt;
     private Instant updatedAt = Instant.now();
+    // bumped by every write (save, patch, bulk adjustment, import), checked by expectedVersion
+    @Version
+    private Long version;
+
+    // lower-cased copies of title/artist, the natural key of the import upserts
+    // (served by titleKey_artistKey_idx)
+    @JsonIgnore
+    private String titleKey;
+    @JsonIgnore
+    private String artistKey;
+    // distinct lower-cased words of title/artist (multikey), so "road" finds "Abbey Road"
+    @JsonIgnore
+    @Indexed(name = "titleWords_idx")
+    private List<String> titleWords;
+    @JsonIgnore
+    @Indexed(name = "artistWords_idx")
+    private List<String> artistWords;
+
+    // relevance of the last $text query, never persisted
+    @JsonIgnore
+    @TextScore
+    private Float score;
+
+    public static String searchKey(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
 
+    public static List<String> searchWords(String value) {
+        if (value == null) return List.of();
+        return Arrays.stream(value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(w -> !w.isEmpty())
+                .distinct()
+                .toList();
+    }
 
 
     public String getId() {
@@ -35,6 +87,8 @@ public class Vinyl {
     }
     public String setTitle(String title) {
         this.title = title;
+        this.titleKey = searchKey(title);
+        this.titleWords = searchWords(title);
         return title;
     }
     public String getArtist(){
@@ -42,6 +96,8 @@ public class Vinyl {
     }
     public String setArtist(String artist){
         this.artist = artist;
+        this.artistKey = searchKey(artist);
+        this.artistWords = searchWords(artist);
         return artist;
     }
 
@@ -92,6 +148,21 @@ public class Vinyl {
         return updatedAt;
     }
 
+    @JsonIgnore
+    public String getTitleKey() {
+        return titleKey;
+    }
+
+    @JsonIgnore
+    public String getArtistKey() {
+        return artistKey;
+    }
+
+    @JsonIgnore
+    public Float getScore() {
+        return score;
+    }
+
      public Boolean getIsPrincipal() {
         return isPrincipal;
     }
@@ -99,4 +170,11 @@ public class Vinyl {
         this.isPrincipal = isPrincipal;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
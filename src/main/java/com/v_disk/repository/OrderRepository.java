@@ -7,7 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.v_disk.model.Order;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 	Optional<Order> findByPaymentId(String paymentId);
 	List<Order> findByUserId(String userId);
 }
@@ -0,0 +1,25 @@
+package com.v_disk.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.v_disk.model.Order;
+import com.v_disk.utils.PageCursor;
+
+public interface OrderRepositoryCustom {
+    /**
+     * Keyset page, newest first; {@code userId} may be null to page over all orders.
+     */
+    List<Order> findPage(String userId, PageCursor after, int limit);
+
+    /**
+     * Admin listing: newest first, every filter optional, {@code items} not loaded.
+     * {@code from} is inclusive, {@code to} exclusive.
+     */
+    List<Order> findSummaryPage(String status, String userId, Instant from, Instant to, PageCursor after, int limit);
+
+    /**
+     * Only the embedded items of one order.
+     */
+    Order findItemsById(String id);
+}
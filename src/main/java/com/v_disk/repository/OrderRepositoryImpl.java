@@ -0,0 +1,61 @@
+package com.v_disk.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.v_disk.model.Order;
+import com.v_disk.utils.PageCursor;
+
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public OrderRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Order> findPage(String userId, PageCursor after, int limit) {
+        Query q = new Query().with(PageCursor.sort(true)).limit(limit);
+        if (userId != null) {
+            q.addCriteria(Criteria.where("userId").is(userId));
+        }
+        if (after != null) {
+            q.addCriteria(after.after(true));
+        }
+        return mongoTemplate.find(q, Order.class);
+    }
+
+    @Override
+    public List<Order> findSummaryPage(String status, String userId, Instant from, Instant to, PageCursor after, int limit) {
+        Query q = new Query().with(PageCursor.sort(true)).limit(limit);
+        q.fields().exclude("items");
+        if (status != null) {
+            q.addCriteria(Criteria.where("orderStatus").is(status));
+        }
+        if (userId != null) {
+            q.addCriteria(Criteria.where("userId").is(userId));
+        }
+        if (from != null || to != null) {
+            Criteria created = Criteria.where("createdAt");
+            if (from != null) created = created.gte(from);
+            if (to != null) created = created.lt(to);
+            q.addCriteria(created);
+        }
+        if (after != null) {
+            q.addCriteria(after.after(true));
+        }
+        return mongoTemplate.find(q, Order.class);
+    }
+
+    @Override
+    public Order findItemsById(String id) {
+        Query q = Query.query(Criteria.where("_id").is(id));
+        q.fields().include("items");
+        return mongoTemplate.findOne(q, Order.class);
+    }
+}
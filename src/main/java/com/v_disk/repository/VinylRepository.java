@@ -3,13 +3,16 @@ package com.v_disk.repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.v_disk.model.Vinyl;
 
-public interface VinylRepository  extends  MongoRepository<Vinyl, String>{
-	List<Vinyl> findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(String title, String artist);
-
+public interface VinylRepository  extends  MongoRepository<Vinyl, String>, VinylRepositoryCustom {
 	@Query("{ 'isPrincipal': ?0 }")
 	List<Vinyl> findByIsPrincipalTrue(boolean isPrincipal);
+
+	// Order line / cart snapshot: only the fields copied into OrderItem plus stock, all ids in one round-trip
+	@Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'title': 1, 'artist': 1, 'price': 1, 'coverPath': 1, 'stock': 1 }")
+	List<Vinyl> findSnapshotsByIdIn(Collection<String> ids);
 }
@@ -0,0 +1,30 @@
+package com.v_disk.repository;
+
+import java.util.List;
+
+import com.v_disk.model.Vinyl;
+import com.v_disk.utils.PageCursor;
+
+public interface VinylRepositoryCustom {
+    /**
+     * Keyset page ordered by (createdAt, _id); returns up to {@code limit} documents after {@code after}.
+     */
+    List<Vinyl> findPage(PageCursor after, int limit);
+
+    /**
+     * Offset window without the count query issued by findAll(Pageable).
+     */
+    List<Vinyl> findWindow(int offset, int limit);
+
+    /**
+     * $text search over title and artist, most relevant first. $text matches whole words only,
+     * so when no document matches, every word of the term is matched as a word prefix instead.
+     */
+    List<Vinyl> searchText(String term, int page, int limit);
+
+    /**
+     * Type-ahead: vinyls with a title or artist word starting with each word of {@code prefix}
+     * (case-insensitive), so "road" suggests "Abbey Road".
+     */
+    List<Vinyl> suggest(String prefix, int limit);
+}
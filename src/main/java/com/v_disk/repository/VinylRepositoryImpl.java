@@ -0,0 +1,93 @@
+package com.v_disk.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import com.v_disk.model.Vinyl;
+import com.v_disk.utils.PageCursor;
+
+public class VinylRepositoryImpl implements VinylRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public VinylRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Vinyl> findPage(PageCursor after, int limit) {
+        Query q = new Query().with(PageCursor.sort(false)).limit(limit);
+        if (after != null) {
+            q.addCriteria(after.after(false));
+        }
+        return mongoTemplate.find(q, Vinyl.class);
+    }
+
+    @Override
+    public List<Vinyl> findWindow(int offset, int limit) {
+        Query q = new Query().with(PageCursor.sort(false)).skip(offset).limit(limit);
+        return mongoTemplate.find(q, Vinyl.class);
+    }
+
+    @Override
+    public List<Vinyl> searchText(String term, int page, int limit) {
+        TextCriteria text = TextCriteria.forLanguage("none").matching(term);
+        List<Vinyl> hits = mongoTemplate.find(TextQuery.queryText(text)
+                .sortByScore()
+                .skip((long) page * limit)
+                .limit(limit), Vinyl.class);
+        if (!hits.isEmpty()) return hits;
+        // $text only matches whole words; when nothing does, the term is treated as word prefixes
+        // ("beat" -> "Beatles"). Decided per term, not per page: an empty page past the end of the
+        // $text results stays empty, and only that rare case pays the extra exists() check.
+        if (page > 0 && mongoTemplate.exists(new TextQuery(text), Vinyl.class)) return hits;
+        Criteria words = wordPrefixes(term);
+        if (words == null) return List.of();
+        // _id order can come from the _id index; titleKey order was a blocking in-memory sort
+        // over every document the regex branches matched
+        Query q = new Query(words)
+                .with(Sort.by("_id"))
+                .skip((long) page * limit)
+                .limit(limit);
+        return mongoTemplate.find(q, Vinyl.class);
+    }
+
+    @Override
+    public List<Vinyl> suggest(String prefix, int limit) {
+        Criteria words = wordPrefixes(prefix);
+        if (words == null) return List.of();
+        return mongoTemplate.find(new Query(words).limit(limit), Vinyl.class);
+    }
+
+    /**
+     * Every word of {@code input} must start some word of the title or artist. Anchored,
+     * case-sensitive regexes on the lower-cased word arrays, so each branch uses its index.
+     */
+    private static Criteria wordPrefixes(String input) {
+        List<String> words = Vinyl.searchWords(input);
+        if (words.isEmpty()) return null;
+        List<Criteria> perWord = words.stream()
+                .map(w -> new Criteria().orOperator(
+                        Criteria.where("titleWords").regex("^" + escapeRegex(w)),
+                        Criteria.where("artistWords").regex("^" + escapeRegex(w))))
+                .toList();
+        return perWord.size() == 1 ? perWord.get(0) : new Criteria().andOperator(perWord);
+    }
+
+    private static String escapeRegex(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        for (char c : value.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.v_disk.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Security principal that also carries the domain fields tokens are built from,
+ * so issuing a JWT after authentication needs no second user lookup.
+ */
+public class AuthenticatedUser extends User {
+
+    private final String id;
+    private final String name;
+    private final Set<String> roles;
+
+    public AuthenticatedUser(String id, String email, String password, String name, Set<String> roles, boolean enabled) {
+        super(email, password == null ? "" : password, enabled, true, true, true, authorities(roles));
+        this.id = id;
+        this.name = name;
+        this.roles = roles == null ? Set.of() : Set.copyOf(roles);
+    }
+
+    public static AuthenticatedUser of(com.v_disk.model.User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword(), user.getName(),
+                user.getRoles(), user.isEmailVerified());
+    }
+
+    private static List<SimpleGrantedAuthority> authorities(Collection<String> roles) {
+        if (roles == null) return List.of();
+        return roles.stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role)).collect(Collectors.toList());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+}
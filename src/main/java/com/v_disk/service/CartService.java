@@ -1,26 +1,84 @@
 package com.v_disk.service;
 
+import java.math.BigDecimal;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.v_disk.dto.cart.CartLineDTO;
+import com.v_disk.dto.cart.CartOperationDTO;
+import com.v_disk.dto.cart.CartViewDTO;
+import com.v_disk.model.Vinyl;
+import com.v_disk.utils.RedisScripts;
 
 @Service
 public class CartService {
 
-    // Redis for bag purposes
+    // Redis for bag purposes. Every mutation is one EVALSHA: the ops, the
+    // per-line quantity cap and the TTL refresh happen atomically, and the
+    // resulting cart comes back in the same round-trip.
+
+    public static final String OP_SET = "set";
+    public static final String OP_INC = "inc";
+    public static final String OP_REMOVE = "remove";
+    public static final String OP_CLEAR = "clear";
+
+    // KEYS[1] cart hash; ARGV[1] ttl seconds, ARGV[2] max quantity, then (op, vinylId, qty) triples
+    private static final String APPLY_LUA = """
+            local key = KEYS[1]
+            local ttl = tonumber(ARGV[1])
+            local max = tonumber(ARGV[2])
+            for i = 3, #ARGV, 3 do
+              local op, field, qty = ARGV[i], ARGV[i + 1], tonumber(ARGV[i + 2])
+              if op == 'clear' then
+                redis.call('DEL', key)
+              elseif op == 'remove' then
+                redis.call('HDEL', key, field)
+              else
+                local n = qty
+                if op == 'inc' then
+                  n = (tonumber(redis.call('HGET', key, field)) or 0) + qty
+                end
+                if n > max then n = max end
+                if n <= 0 then
+                  redis.call('HDEL', key, field)
+                else
+                  redis.call('HSET', key, field, n)
+                end
+              end
+            end
+            if redis.call('EXISTS', key) == 1 then
+              redis.call('EXPIRE', key, ttl)
+            end
+            return redis.call('HGETALL', key)
+            """;
+
+    private static final RedisScript<List<Object>> APPLY_SCRIPT = RedisScripts.returningList(APPLY_LUA);
 
     private final StringRedisTemplate redis;
+    private final VinylSnapshotService vinylSnapshotService;
 
     private final Duration cartTtl;
+    private final int maxQuantityPerItem;
+    private final int maxOpsPerRequest;
 
-    public CartService(StringRedisTemplate redis, @Value("${app.cart.ttl.seconds:86400}") long ttlSeconds) {
+    public CartService(StringRedisTemplate redis, VinylSnapshotService vinylSnapshotService, @Value("${app.cart.ttl.seconds:86400}") long ttlSeconds,
+            @Value("${app.cart.max-quantity-per-item:99}") int maxQuantityPerItem,
+            @Value("${app.cart.max-ops-per-request:100}") int maxOpsPerRequest) {
         this.redis = redis;
+        this.vinylSnapshotService = vinylSnapshotService;
         this.cartTtl = Duration.ofSeconds(ttlSeconds);
+        this.maxQuantityPerItem = maxQuantityPerItem;
+        this.maxOpsPerRequest = maxOpsPerRequest;
     }
 
     private String keyFor(String userId) {
@@ -28,14 +86,11 @@ public class CartService {
     }
 
     public void putItem(String userId, String vinylId, int quantity) {
-        String key = keyFor(userId);
-        redis.opsForHash().put(key, vinylId, String.valueOf(quantity));
-        redis.expire(key, cartTtl);
+        apply(userId, List.of(new CartOperationDTO(OP_SET, vinylId, quantity)));
     }
 
     public void removeItem(String userId, String vinylId) {
-        String key = keyFor(userId);
-        redis.opsForHash().delete(key, vinylId);
+        apply(userId, List.of(new CartOperationDTO(OP_REMOVE, vinylId, null)));
     }
 
     public Map<String, Integer> listItems(String userId) {
@@ -43,29 +98,99 @@ public class CartService {
         Map<Object, Object> entries = redis.opsForHash().entries(key);
         if (entries == null)
             return Map.of();
-        return entries.entrySet().stream()
-                .collect(Collectors.toMap(
-                        e -> String.valueOf(e.getKey()),
-                        e -> Integer.parseInt(String.valueOf(e.getValue()))));
+        Map<String, Integer> out = new LinkedHashMap<>();
+        entries.forEach((k, v) -> out.put(String.valueOf(k), Integer.parseInt(String.valueOf(v))));
+        return out;
+    }
+
+    /**
+     * Cart lines joined with title, price, cover and stock (one batch lookup) plus the subtotal.
+     */
+    public CartViewDTO view(String userId) {
+        Map<String, Integer> items = listItems(userId);
+        Map<String, Vinyl> vinyls = vinylSnapshotService.findSnapshots(items.keySet());
+        List<CartLineDTO> lines = new ArrayList<>(items.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int count = 0;
+        for (Map.Entry<String, Integer> e : items.entrySet()) {
+            Vinyl v = vinyls.get(e.getKey());
+            int qty = e.getValue();
+            count += qty;
+            if (v == null) {
+                lines.add(new CartLineDTO(e.getKey(), null, null, null, null, 0, qty, BigDecimal.ZERO, false));
+                continue;
+            }
+            BigDecimal lineTotal = v.getPrice() == null ? BigDecimal.ZERO : v.getPrice().multiply(BigDecimal.valueOf(qty));
+            boolean available = v.getStock() != null && v.getStock() >= qty;
+            subtotal = subtotal.add(lineTotal);
+            lines.add(new CartLineDTO(v.getId(), v.getTitle(), v.getArtist(), v.getPrice(), v.getCoverPath(),
+                    v.getStock(), qty, lineTotal, available));
+        }
+        return new CartViewDTO(userId, lines, count, subtotal);
     }
 
     public void clearCart(String userId) {
         redis.delete(keyFor(userId));
     }
 
+    // merges the given lines into the existing cart
     public void createCart(String userId, Map<String, Integer> items) {
-        String key = keyFor(userId);
-        Map<String, String> toStore = new HashMap<>();
-        items.forEach((k, v) -> toStore.put(k, String.valueOf(v)));
-        redis.opsForHash().putAll(key, toStore);
-        redis.expire(key, cartTtl);
+        List<CartOperationDTO> ops = new ArrayList<>(items.size());
+        items.forEach((k, v) -> ops.add(new CartOperationDTO(OP_SET, k, v)));
+        apply(userId, ops);
     }
 
+    // replaces the whole cart, lines not in the map are dropped
     public void setCart(String userId, Map<String, Integer> items) {
-        String key = keyFor(userId);
-        Map<String, String> toStore = new HashMap<>();
-        items.forEach((k, v) -> toStore.put(k, String.valueOf(v)));
-        redis.opsForHash().putAll(key, toStore);
-        redis.expire(key, cartTtl);
+        List<CartOperationDTO> ops = new ArrayList<>(items.size() + 1);
+        ops.add(new CartOperationDTO(OP_CLEAR, null, null));
+        items.forEach((k, v) -> ops.add(new CartOperationDTO(OP_SET, k, v)));
+        apply(userId, ops);
+    }
+
+    /**
+     * Applies the operations in order as one atomic Redis call and returns the resulting cart.
+     */
+    public Map<String, Integer> apply(String userId, List<CartOperationDTO> ops) {
+        if (ops == null || ops.isEmpty()) {
+            return listItems(userId);
+        }
+        if (ops.size() > maxOpsPerRequest) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxOpsPerRequest + " cart operations per request");
+        }
+        List<String> args = new ArrayList<>(2 + ops.size() * 3);
+        args.add(String.valueOf(cartTtl.toSeconds()));
+        args.add(String.valueOf(maxQuantityPerItem));
+        for (CartOperationDTO op : ops) {
+            String type = op.op() == null ? "" : op.op();
+            switch (type) {
+                case OP_CLEAR -> {
+                    args.add(OP_CLEAR);
+                    args.add("");
+                    args.add("0");
+                }
+                case OP_REMOVE, OP_SET, OP_INC -> {
+                    if (op.vinylId() == null || op.vinylId().isBlank()) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "vinylId is required for " + type);
+                    }
+                    if (!OP_REMOVE.equals(type) && op.quantity() == null) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity is required for " + type);
+                    }
+                    args.add(type);
+                    args.add(op.vinylId());
+                    args.add(String.valueOf(op.quantity() == null ? 0 : op.quantity()));
+                }
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown cart operation: " + type);
+            }
+        }
+
+        List<Object> flat = redis.execute(APPLY_SCRIPT, List.of(keyFor(userId)), args.toArray());
+        Map<String, Integer> out = new LinkedHashMap<>();
+        if (flat != null) {
+            for (int i = 0; i + 1 < flat.size(); i += 2) {
+                out.put(String.valueOf(flat.get(i)), Integer.parseInt(String.valueOf(flat.get(i + 1))));
+            }
+        }
+        return out;
     }
 }
@@ -0,0 +1,319 @@
+package com.v_disk.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.config.MailConfig;
+import com.v_disk.model.EmailOutboxMessage;
+import com.v_disk.utils.LatencyStats;
+import com.v_disk.utils.PooledJavaMailSender;
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * Transactional email outbox.
+ *
+ * Request threads only insert a PENDING document. A scheduled poller claims due
+ * messages with findAndModify (safe with several app instances), hands them in
+ * batches to the outbox workers and records the outcome: SENT, or a retry with
+ * exponential backoff, or DEAD once max-attempts is reached.
+ *
+ * Every claim counts as an attempt, so a message whose worker dies mid-send (lease
+ * expired) still runs out of attempts. Each claim stamps a fresh claimToken and the
+ * outcome writes match on it: a worker that lost its lease cannot overwrite the
+ * state written by the one that reclaimed the message.
+ */
+@Service
+public class EmailOutboxService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final JavaMailSender mailSender;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LatencyStats sendLatency = new LatencyStats();
+    private final LatencyStats deliveryLatency = new LatencyStats();
+
+    public EmailOutboxService(MongoTemplate mongoTemplate,
+            ObjectProvider<JavaMailSender> mailSender,
+            @Qualifier(MailConfig.OUTBOX_EXECUTOR) ThreadPoolTaskExecutor executor,
+            @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+            @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.mail.outbox.backoff.initial-seconds:30}") long initialBackoffSeconds,
+            @Value("${app.mail.outbox.backoff.max-seconds:3600}") long maxBackoffSeconds,
+            @Value("${app.mail.outbox.lease-seconds:300}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.mailSender = mailSender.getIfAvailable();
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        if (this.mailSender == null) {
+            logger.warn("No JavaMailSender configured, outgoing email is disabled");
+        }
+    }
+
+    public boolean isAvailable() {
+        return mailSender != null;
+    }
+
+    /**
+     * Queues a plain text email. Returns false when mail is not configured.
+     */
+    public boolean enqueue(String to, String from, String subject, String body) {
+        if (mailSender == null) return false;
+        Instant now = Instant.now();
+        EmailOutboxMessage m = new EmailOutboxMessage();
+        m.setTo(to);
+        m.setFrom(from);
+        m.setSubject(subject);
+        m.setBody(body);
+        m.setStatus(EmailOutboxMessage.PENDING);
+        m.setAttempts(0);
+        m.setNextAttemptAt(now);
+        m.setCreatedAt(now);
+        mongoTemplate.insert(m);
+        enqueued.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (mailSender == null) return;
+        buryAbandoned();
+        int free = executor.getMaxPoolSize() + executor.getQueueCapacity()
+                - executor.getActiveCount() - executor.getThreadPoolExecutor().getQueue().size();
+        for (int i = 0; i < free; i++) {
+            String token = UUID.randomUUID().toString();
+            List<EmailOutboxMessage> batch = claim(token, batchSize);
+            if (batch.isEmpty()) return;
+            try {
+                executor.execute(() -> deliver(token, batch));
+            } catch (TaskRejectedException e) {
+                release(token, batch);
+                return;
+            }
+        }
+    }
+
+    // a lease that expired on the last allowed attempt is not reclaimed
+    private void buryAbandoned() {
+        Instant now = Instant.now();
+        long buried = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").is(EmailOutboxMessage.SENDING)
+                        .and("lockedUntil").lte(now)
+                        .and("attempts").gte(maxAttempts)),
+                new Update()
+                        .set("status", EmailOutboxMessage.DEAD)
+                        .set("lastError", "lease expired on the last attempt")
+                        .unset("lockedUntil")
+                        .unset("claimToken"),
+                EmailOutboxMessage.class).getModifiedCount();
+        if (buried > 0) {
+            deadLettered.add(buried);
+            logger.error("{} emails dead-lettered after their last attempt was abandoned", buried);
+        }
+    }
+
+    private List<EmailOutboxMessage> claim(String token, int max) {
+        Instant now = Instant.now();
+        Query due = Query.query(new Criteria().orOperator(
+                Criteria.where("status").is(EmailOutboxMessage.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailOutboxMessage.SENDING).and("lockedUntil").lte(now)
+                        .and("attempts").lt(maxAttempts)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update claim = new Update()
+                .set("status", EmailOutboxMessage.SENDING)
+                .set("lockedUntil", now.plus(lease))
+                .set("claimToken", token)
+                .inc("attempts", 1);
+
+        List<EmailOutboxMessage> batch = new ArrayList<>(max);
+        while (batch.size() < max) {
+            EmailOutboxMessage m = mongoTemplate.findAndModify(due, claim,
+                    FindAndModifyOptions.options().returnNew(true), EmailOutboxMessage.class);
+            if (m == null) break;
+            batch.add(m);
+        }
+        return batch;
+    }
+
+    private static Query claimedBy(String token, List<String> ids) {
+        return Query.query(Criteria.where("_id").in(ids)
+                .and("status").is(EmailOutboxMessage.SENDING)
+                .and("claimToken").is(token));
+    }
+
+    // never handed to a worker, so the attempt taken by the claim is given back
+    private void release(String token, List<EmailOutboxMessage> batch) {
+        mongoTemplate.updateMulti(
+                claimedBy(token, batch.stream().map(EmailOutboxMessage::getId).toList()),
+                new Update()
+                        .set("status", EmailOutboxMessage.PENDING)
+                        .inc("attempts", -1)
+                        .unset("lockedUntil")
+                        .unset("claimToken"),
+                EmailOutboxMessage.class);
+    }
+
+    private void deliver(String token, List<EmailOutboxMessage> batch) {
+        Map<SimpleMailMessage, EmailOutboxMessage> byMessage = new IdentityHashMap<>();
+        for (EmailOutboxMessage m : batch) {
+            SimpleMailMessage msg = new SimpleMailMessage();
+            msg.setTo(m.getTo());
+            if (m.getFrom() != null) msg.setFrom(m.getFrom());
+            msg.setSubject(m.getSubject());
+            msg.setText(m.getBody());
+            byMessage.put(msg, m);
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        Exception batchError = null;
+        long start = System.nanoTime();
+        try {
+            // one call per batch: the sender reuses a single SMTP session for all of them
+            mailSender.send(byMessage.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) batchError = e;
+        } catch (MailException e) {
+            batchError = e;
+        } catch (RuntimeException e) {
+            batchError = e;
+        }
+        sendLatency.record(System.nanoTime() - start);
+
+        Instant now = Instant.now();
+        List<String> delivered = new ArrayList<>();
+        for (Map.Entry<SimpleMailMessage, EmailOutboxMessage> e : byMessage.entrySet()) {
+            EmailOutboxMessage m = e.getValue();
+            Exception error = batchError != null ? batchError : failed.get(e.getKey());
+            if (error == null) {
+                delivered.add(m.getId());
+                if (m.getCreatedAt() != null) {
+                    deliveryLatency.record(Duration.between(m.getCreatedAt(), now).toNanos());
+                }
+            } else {
+                retryOrBury(token, m, error, now);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            long marked = mongoTemplate.updateMulti(
+                    claimedBy(token, delivered),
+                    new Update()
+                            .set("status", EmailOutboxMessage.SENT)
+                            .set("sentAt", now)
+                            .unset("lockedUntil")
+                            .unset("claimToken")
+                            .unset("lastError"),
+                    EmailOutboxMessage.class).getModifiedCount();
+            sent.add(delivered.size());
+            if (marked < delivered.size()) {
+                logger.warn("{} delivered emails had lost their claim and may be sent again", delivered.size() - marked);
+            }
+        }
+    }
+
+    private void retryOrBury(String token, EmailOutboxMessage m, Exception error, Instant now) {
+        failures.increment();
+        // the claim already counted this attempt
+        int attempts = m.getAttempts();
+        Update update = new Update()
+                .set("lastError", String.valueOf(error.getMessage()))
+                .unset("lockedUntil")
+                .unset("claimToken");
+        boolean dead = attempts >= maxAttempts;
+        if (dead) {
+            update.set("status", EmailOutboxMessage.DEAD);
+        } else {
+            update.set("status", EmailOutboxMessage.PENDING).set("nextAttemptAt", now.plus(backoff(attempts)));
+        }
+        if (mongoTemplate.updateFirst(claimedBy(token, List.of(m.getId())), update, EmailOutboxMessage.class)
+                .getModifiedCount() == 0) {
+            logger.warn("Email {} to {} failed after its claim was lost: {}", m.getId(), m.getTo(), error.getMessage());
+            return;
+        }
+        if (dead) {
+            deadLettered.increment();
+            logger.error("Email {} to {} dead-lettered after {} attempts: {}", m.getId(), m.getTo(), attempts, error.getMessage());
+        } else {
+            logger.warn("Email {} to {} failed (attempt {}): {}", m.getId(), m.getTo(), attempts, error.getMessage());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        // +/-20% jitter so a relay outage does not end in one synchronized retry wave
+        long jitter = (long) (capped * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Duration.ofMillis(Math.max(0, capped + jitter));
+    }
+
+    @Override
+    public String statsName() {
+        return "emailOutbox";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", mailSender != null);
+        out.put("pending", count(EmailOutboxMessage.PENDING));
+        out.put("inFlight", count(EmailOutboxMessage.SENDING));
+        out.put("dead", count(EmailOutboxMessage.DEAD));
+        out.put("enqueued", enqueued.sum());
+        out.put("sent", sent.sum());
+        out.put("failures", failures.sum());
+        out.put("deadLettered", deadLettered.sum());
+        out.put("sendLatency", sendLatency.snapshot());
+        out.put("deliveryLatency", deliveryLatency.snapshot());
+        if (mailSender instanceof PooledJavaMailSender pooled) {
+            out.put("smtpPool", pooled.stats());
+        }
+        return out;
+    }
+
+    private long count(String status) {
+        return mongoTemplate.count(Query.query(Criteria.where("status").is(status)), EmailOutboxMessage.class);
+    }
+}
@@ -6,8 +6,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -15,13 +15,16 @@ import com.v_disk.model.EmailVerificationToken;
 import com.v_disk.model.User;
 import com.v_disk.repository.EmailVerificationTokenRepository;
 import com.v_disk.repository.UserRepository;
+import com.v_disk.utils.VersionedUpdate;
 
 @Service
 public class EmailVerificationService {
 
     private final EmailVerificationTokenRepository tokenRepo;
     private final UserRepository userRepo;
-    private final JavaMailSender mailSender;
+    private final EmailOutboxService emailOutbox;
+    private final PrincipalCacheService principalCacheService;
+    private final MongoTemplate mongoTemplate;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(EmailVerificationService.class);
 
     
@@ -34,10 +37,13 @@ public class EmailVerificationService {
     @Value("${app.front.verify-path:/verify-email}")
     private String verifyPath;
 
-    public EmailVerificationService(EmailVerificationTokenRepository tokenRepo, UserRepository userRepo, JavaMailSender mailSender) {
+    public EmailVerificationService(EmailVerificationTokenRepository tokenRepo, UserRepository userRepo, EmailOutboxService emailOutbox,
+            PrincipalCacheService principalCacheService, MongoTemplate mongoTemplate) {
         this.tokenRepo = tokenRepo;
         this.userRepo = userRepo;
-        this.mailSender = mailSender;
+        this.emailOutbox = emailOutbox;
+        this.principalCacheService = principalCacheService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public EmailVerificationToken createTokenForUser(User user) {
@@ -55,12 +61,7 @@ public class EmailVerificationService {
     }
 
     public void sendVerificationEmail(User user, EmailVerificationToken token) {
-        if (mailSender == null) return;
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(user.getEmail());
-        msg.setFrom(fromAddress);
-        msg.setSubject("Confirme seu e-mail");
-
+        if (!emailOutbox.isAvailable()) return;
         String link;
         try {
             String trimmedVerify = verifyPath == null ? "" : verifyPath.trim();
@@ -93,8 +94,7 @@ public class EmailVerificationService {
         String body = "Hi " + (user.getName() == null ? "" : user.getName()) + ",\n\n" +
             "Please click the link below to confirm your email address:\n" + link + "\n\n" +
             "If you did not request this, please ignore this email.";
-        msg.setText(body);
-        mailSender.send(msg);
+        emailOutbox.enqueue(user.getEmail(), fromAddress, "Confirme seu e-mail", body);
     }
 
     
@@ -136,8 +136,9 @@ public class EmailVerificationService {
             tokenRepo.deleteByUserId(u.getId());
             return VerificationStatus.SUCCESS;
         }
-        u.setEmailVerified(true);
-        userRepo.save(u);
+        VersionedUpdate.apply(mongoTemplate, User.class, u.getId(), null,
+                new Update().set("emailVerified", true), false);
+        principalCacheService.evict(u.getEmail());
         tokenRepo.deleteByUserId(u.getId());
         return VerificationStatus.SUCCESS;
     }
@@ -1,37 +1,63 @@
 package com.v_disk.service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 
+import com.v_disk.model.Tokens;
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.servlet.http.HttpServletRequest;
 
 
 // generated by IA
 
 @Service
-public class JwtService {
+public class JwtService implements StatsContributor {
+    /** Request attribute holding the token already verified during the current request. */
+    public static final String VERIFIED_TOKEN_ATTRIBUTE = JwtService.class.getName() + ".VERIFIED_TOKEN";
+
+    private record VerifiedToken(String token, Claims claims) {}
+
     private final Key jwtKey;
     private final long ttlSeconds;
     private final String issuer;
+    // JwtParser is immutable and thread-safe once built
+    private final JwtParser parser;
+    // verified claims keyed by SHA-256 of the compact token, kept until the token's exp
+    private final TtlCache<String, Claims> verifiedClaims;
 
     public JwtService(Key jwtKey,
-            @Value("${jwt.ttl.seconds:3600}") long ttlSeconds,
-            @Value("${jwt.issuer:v-disk}") String issuer) {
+            @Value("${jwt.ttl.seconds:900}") long ttlSeconds,
+            @Value("${jwt.issuer:v-disk}") String issuer,
+            @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries) {
         this.jwtKey = jwtKey;
         this.ttlSeconds = ttlSeconds;
         this.issuer = issuer;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(jwtKey)
+                .requireIssuer(issuer)
+                .build();
+        this.verifiedClaims = new TtlCache<>(cacheMaxEntries, ttlSeconds * 1000);
     }
 
     /**
@@ -51,10 +77,14 @@ public class JwtService {
         if (extras != null) {
             claims.putAll(extras);
         }
+        claims.put("typ", Tokens.AUTH_TOKEN);
+        claims.put(Tokens.ISSUED_AT_MILLIS, now.toEpochMilli());
 
         return Jwts.builder()
                 .setClaims(claims) // Set custom claims first
                 .setSubject(username)
+                // jti, lets TokenRevocationService revoke this single token
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(issuedAt)
                 .setIssuer(issuer)
                 .setExpiration(expiresAt)
@@ -70,16 +100,66 @@ public class JwtService {
      * @throws JwtException if the token is invalid
      */
     public Claims validateToken(String token) throws JwtException {
+        if (token == null || token.isBlank()) {
+            throw new JwtException("Invalid token: empty");
+        }
+        String cacheKey = hash(token);
+        Claims cached = verifiedClaims.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parse(token);
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(cacheKey, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    /**
+     * Same as {@link #validateToken(String)} but verifies a given token at most once
+     * per request: the result is stored as a request attribute and reused by later
+     * callers (filter, entry point, access denied handler).
+     */
+    public Claims validateToken(HttpServletRequest request, String token) throws JwtException {
+        Object attr = request.getAttribute(VERIFIED_TOKEN_ATTRIBUTE);
+        if (attr instanceof VerifiedToken verified && verified.token().equals(token)) {
+            return verified.claims();
+        }
+        Claims claims = validateToken(token);
+        request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, new VerifiedToken(token, claims));
+        return claims;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    @Override
+    public String statsName() {
+        return "verifiedTokens";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return verifiedClaims.stats();
+    }
+
+    private Claims parse(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(jwtKey)
-                    .requireIssuer(issuer)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (SignatureException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException
                 | IllegalArgumentException e) {
             throw new JwtException("Invalid token: " + e.getMessage(), e);
         }
     }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] out = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(out);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.v_disk.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.v_disk.dto.order.OrderResponseDTO;
+import com.v_disk.model.Order;
+import com.v_disk.model.OrderStatus;
+import com.v_disk.model.ProcessedPaymentEvent;
+import com.v_disk.repository.OrderRepository;
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
+/**
+ * Exactly-once handling of the /payment/{paymentId}/* callbacks.
+ *
+ * 1. recently handled events are answered from an in-memory cache, no Mongo access;
+ * 2. the event is claimed by inserting processed_payment_events/{paymentId:STATUS}
+ *    (a duplicate key means it was handled, or is being handled, elsewhere);
+ * 3. the order moves with a conditional update that only matches its current status,
+ *    after checking the transition against {@link OrderStatus};
+ * 4. side effects run; if they fail the status is put back and the claim removed
+ *    so the provider's retry is processed again. Side effects must therefore only throw
+ *    before their first irreversible write; anything after it has to be best-effort.
+ */
+@Service
+public class PaymentEventService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentEventService.class);
+
+    public record Outcome(OrderResponseDTO order, boolean duplicate) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderRepository orderRepository;
+    private final TtlCache<String, OrderResponseDTO> recent;
+    private final Duration claimLease;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PaymentEventService(MongoTemplate mongoTemplate, OrderRepository orderRepository,
+            @Value("${app.payment.events.cache.max-entries:10000}") int maxEntries,
+            @Value("${app.payment.events.cache.ttl.seconds:600}") long ttlSeconds,
+            @Value("${app.payment.events.claim-lease-seconds:300}") long claimLeaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderRepository = orderRepository;
+        this.recent = new TtlCache<>(maxEntries, ttlSeconds * 1000);
+        this.claimLease = Duration.ofSeconds(claimLeaseSeconds);
+    }
+
+    public Outcome transition(String paymentId, OrderStatus target, Consumer<Order> sideEffects) {
+        String eventId = ProcessedPaymentEvent.idFor(paymentId, target);
+        OrderResponseDTO seen = recent.get(eventId);
+        if (seen != null) {
+            duplicates.increment();
+            return new Outcome(seen, true);
+        }
+
+        Order order = orderRepository.findByPaymentId(paymentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found for paymentId"));
+        if (!claim(eventId, paymentId, target, order)) {
+            duplicates.increment();
+            return remember(eventId, order, true);
+        }
+
+        try {
+            OrderStatus from = OrderStatus.from(order.getOrderStatus());
+            if (from == target) {
+                // already there (e.g. handled before the event log existed)
+                markProcessed(eventId);
+                duplicates.increment();
+                return remember(eventId, order, true);
+            }
+            if (from == null || !from.canMoveTo(target)) {
+                rejected.increment();
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Cannot move order from " + order.getOrderStatus() + " to " + target);
+            }
+
+            Instant now = Instant.now();
+            Order updated = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(order.getId()).and("orderStatus").is(order.getOrderStatus())),
+                    new Update()
+                            .set("orderStatus", target.name())
+                            .set("isPaymentConfirmed", target == OrderStatus.CONFIRMED)
+                            .set("updatedAt", now)
+                            .inc("version", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Order.class);
+            if (updated == null) {
+                rejected.increment();
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Order status changed concurrently, retry");
+            }
+
+            try {
+                sideEffects.accept(updated);
+            } catch (RuntimeException e) {
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(order.getId()).and("orderStatus").is(target.name())),
+                        new Update()
+                                .set("orderStatus", order.getOrderStatus())
+                                .set("isPaymentConfirmed", order.getIsPaymentConfirmed())
+                                .set("updatedAt", Instant.now())
+                                .inc("version", 1),
+                        Order.class);
+                throw e;
+            }
+
+            markProcessed(eventId);
+            processed.increment();
+            return remember(eventId, updated, false);
+        } catch (RuntimeException e) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(eventId).and("state").is(ProcessedPaymentEvent.PROCESSING)),
+                    ProcessedPaymentEvent.class);
+            throw e;
+        }
+    }
+
+    /**
+     * @return false when the event was already processed
+     */
+    private boolean claim(String eventId, String paymentId, OrderStatus target, Order order) {
+        ProcessedPaymentEvent event = new ProcessedPaymentEvent();
+        event.setId(eventId);
+        event.setPaymentId(paymentId);
+        event.setTransition(target.name());
+        event.setOrderId(order.getId());
+        event.setState(ProcessedPaymentEvent.PROCESSING);
+        event.setClaimedAt(Instant.now());
+        try {
+            mongoTemplate.insert(event);
+            return true;
+        } catch (DuplicateKeyException e) {
+            ProcessedPaymentEvent existing = mongoTemplate.findById(eventId, ProcessedPaymentEvent.class);
+            if (existing == null) {
+                return claimAgain(event);
+            }
+            if (ProcessedPaymentEvent.PROCESSED.equals(existing.getState())) {
+                return false;
+            }
+            if (existing.getClaimedAt() != null && existing.getClaimedAt().isBefore(Instant.now().minus(claimLease))) {
+                // the node that claimed it died half-way: take over
+                logger.warn("Taking over stale payment event claim {}", eventId);
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(eventId)
+                        .and("state").is(ProcessedPaymentEvent.PROCESSING)
+                        .and("claimedAt").is(existing.getClaimedAt())), ProcessedPaymentEvent.class);
+                return claimAgain(event);
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment event is already being processed");
+        }
+    }
+
+    private boolean claimAgain(ProcessedPaymentEvent event) {
+        try {
+            mongoTemplate.insert(event);
+            return true;
+        } catch (DuplicateKeyException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment event is already being processed");
+        }
+    }
+
+    private void markProcessed(String eventId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(eventId)),
+                new Update().set("state", ProcessedPaymentEvent.PROCESSED).set("processedAt", Instant.now()),
+                ProcessedPaymentEvent.class);
+    }
+
+    private Outcome remember(String eventId, Order order, boolean duplicate) {
+        OrderResponseDTO dto = OrderResponseDTO.from(order);
+        recent.put(eventId, dto);
+        return new Outcome(dto, duplicate);
+    }
+
+    @Override
+    public String statsName() {
+        return "paymentEvents";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return Map.of(
+                "processed", processed.sum(),
+                "duplicates", duplicates.sum(),
+                "rejected", rejected.sum(),
+                "recent", recent.stats());
+    }
+}
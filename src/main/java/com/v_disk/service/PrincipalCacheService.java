@@ -0,0 +1,107 @@
+package com.v_disk.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Resolves the authenticated principal for a validated JWT.
+ *
+ * Modes (app.auth.principal.mode):
+ * - cache  : UserDetails are loaded from Mongo once and kept in a bounded TTL cache
+ * - claims : principal and authorities are built from the token claims, no lookup at all (default);
+ *            safe because access tokens are short-lived and claims are rebuilt on every refresh
+ * - db     : always load from Mongo (previous behaviour)
+ */
+@Service
+public class PrincipalCacheService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCacheService.class);
+
+    public static final String MODE_CACHE = "cache";
+    public static final String MODE_CLAIMS = "claims";
+    public static final String MODE_DB = "db";
+
+    private final UserDetailsService userDetailsService;
+    private final TtlCache<String, UserDetails> cache;
+    private final String mode;
+
+    public PrincipalCacheService(UserDetailsService userDetailsService,
+            @Value("${app.auth.principal.mode:claims}") String mode,
+            @Value("${app.auth.principal.cache.max-entries:10000}") int maxEntries,
+            @Value("${app.auth.principal.cache.ttl.seconds:300}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.mode = mode == null ? MODE_CLAIMS : mode.trim().toLowerCase();
+        this.cache = new TtlCache<>(maxEntries, ttlSeconds * 1000);
+        logger.info("Principal resolution mode={} (maxEntries={}, ttl={}s)", this.mode, maxEntries, ttlSeconds);
+    }
+
+    public UserDetails resolve(String username, Claims claims) {
+        switch (mode) {
+            case MODE_CLAIMS:
+                return fromClaims(username, claims);
+            case MODE_DB:
+                return userDetailsService.loadUserByUsername(username);
+            case MODE_CACHE:
+            default:
+                return cache.getOrLoad(username, userDetailsService::loadUserByUsername);
+        }
+    }
+
+    /**
+     * Drops the cached principal for the given email. Must be called whenever
+     * roles, password or emailVerified change, or when the user is deleted.
+     */
+    public void evict(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String statsName() {
+        return "principals";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return Map.of("mode", mode, "cache", cache.stats());
+    }
+
+    private UserDetails fromClaims(String username, Claims claims) {
+        return new AuthenticatedUser(
+                claims != null ? claims.get("userId", String.class) : null,
+                username,
+                "",
+                claims != null ? claims.get("name", String.class) : null,
+                rolesFromClaims(claims),
+                true);
+    }
+
+    private Set<String> rolesFromClaims(Claims claims) {
+        Object raw = claims != null ? claims.get("roles") : null;
+        if (!(raw instanceof Collection<?> roles)) {
+            return Set.of();
+        }
+        return roles.stream()
+                .map(String::valueOf)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,107 @@
+package com.v_disk.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.model.Vinyl;
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * In-heap near-cache (L1) for the homepage principal list, in front of the
+ * Redis catalog cache (L2) and Mongo.
+ *
+ * Every node keeps its own copy and drops it when a message arrives on
+ * {@link #INVALIDATION_CHANNEL}; only one thread per node reloads a cold entry.
+ */
+@Service
+public class PrincipalVinylCache implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalVinylCache.class);
+
+    public static final String INVALIDATION_CHANNEL = "v-disk:cache:principal";
+
+    private record Snapshot(List<Vinyl> vinyls, long expiresAtMillis, long generation) {}
+
+    private final VinylCatalogService catalog;
+    private final long ttlMillis;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Snapshot current;
+    // bumped on invalidation so a load racing with it does not publish stale data
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public PrincipalVinylCache(VinylCatalogService catalog, RedisMessageListenerContainer listenerContainer,
+            @Value("${app.cache.catalog.principal-l1-seconds:300}") long ttlSeconds) {
+        this.catalog = catalog;
+        this.ttlMillis = ttlSeconds * 1000;
+        listenerContainer.addMessageListener((message, pattern) -> invalidateLocal(),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public List<Vinyl> get() {
+        Snapshot s = current;
+        if (isFresh(s)) {
+            l1Hits.increment();
+            return s.vinyls();
+        }
+        loadLock.lock();
+        try {
+            // another thread may have loaded it while we waited
+            s = current;
+            if (isFresh(s)) {
+                l1Hits.increment();
+                return s.vinyls();
+            }
+            l1Misses.increment();
+            long gen = generation.get();
+            List<Vinyl> loaded = List.copyOf(catalog.principal());
+            if (gen == generation.get()) {
+                current = new Snapshot(loaded, System.currentTimeMillis() + ttlMillis, gen);
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public void invalidateLocal() {
+        generation.incrementAndGet();
+        current = null;
+        invalidations.increment();
+        logger.debug("Principal vinyl L1 invalidated");
+    }
+
+    @Override
+    public String statsName() {
+        return "principalVinyls";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long h = l1Hits.sum();
+        long m = l1Misses.sum();
+        return Map.of(
+                "l1Hits", h,
+                "l1Misses", m,
+                "l1HitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m),
+                "invalidations", invalidations.sum());
+    }
+
+    private boolean isFresh(Snapshot s) {
+        return s != null && s.generation() == generation.get() && s.expiresAtMillis() > System.currentTimeMillis();
+    }
+}
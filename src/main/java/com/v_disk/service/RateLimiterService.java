@@ -0,0 +1,155 @@
+package com.v_disk.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.utils.RedisScripts;
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
+/**
+ * Sliding-window limits kept in Redis, shared by every node.
+ *
+ * Each limit is approximated with two fixed windows: the previous window's count,
+ * weighted by how much of it still overlaps the sliding window, plus the current
+ * count. All limits of a request are checked and counted in one Lua call, so the
+ * limiter costs at most one round-trip. A denied key is remembered locally until
+ * its retry time, so a client hammering a blocked key never reaches Redis.
+ *
+ * Redis errors fail open: losing the limiter must not take login down.
+ */
+@Service
+public class RateLimiterService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterService.class);
+
+    public static final String KEY_PREFIX = "ratelimit:";
+
+    // per limit i: KEYS[2i-1] current window counter, KEYS[2i] previous window counter;
+    // ARGV (max, window millis, millis elapsed in the current window) per limit
+    // returns {0, 0} when allowed (every current counter incremented), else {i, wait millis} for the first denying limit
+    private static final String ACQUIRE_LUA = """
+            local n = #KEYS / 2
+            for i = 1, n do
+              local max = tonumber(ARGV[3 * i - 2])
+              local window = tonumber(ARGV[3 * i - 1])
+              local elapsed = tonumber(ARGV[3 * i])
+              local cur = tonumber(redis.call('GET', KEYS[2 * i - 1])) or 0
+              local prev = tonumber(redis.call('GET', KEYS[2 * i])) or 0
+              local remaining = (window - elapsed) / window
+              if prev * remaining + cur + 1 > max then
+                local wait
+                if cur + 1 > max or prev == 0 then
+                  wait = window - elapsed
+                else
+                  wait = (window - elapsed) - (max - cur - 1) * window / prev
+                end
+                return {i, math.max(1, math.ceil(wait))}
+              end
+            end
+            for i = 1, n do
+              redis.call('INCR', KEYS[2 * i - 1])
+              redis.call('PEXPIRE', KEYS[2 * i - 1], tonumber(ARGV[3 * i - 1]) * 2)
+            end
+            return {0, 0}
+            """;
+
+    private static final RedisScript<List<Object>> ACQUIRE_SCRIPT = RedisScripts.returningList(ACQUIRE_LUA);
+
+    /**
+     * At most {@code max} requests per {@code windowMillis} for {@code key}. The window
+     * counters are stored under {@code key + ":" + windowIndex}.
+     */
+    public record Limit(String key, int max, long windowMillis) {
+    }
+
+    private final StringRedisTemplate redis;
+    // key -> blocked-until millis
+    private final TtlCache<String, Long> blocked;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LongAdder deniedLocally = new LongAdder();
+    private final LongAdder failedOpen = new LongAdder();
+
+    public RateLimiterService(StringRedisTemplate redis,
+            @Value("${app.rate-limit.local-block.max-entries:10000}") int maxBlockedEntries) {
+        this.redis = redis;
+        this.blocked = new TtlCache<>(maxBlockedEntries, 60_000);
+    }
+
+    /**
+     * Counts one request against every limit, all or nothing. On Redis Cluster the keys
+     * of one call must share a hash tag, since they are checked in a single script.
+     *
+     * @return 0 when allowed, otherwise how many millis to wait before retrying
+     */
+    public long acquire(List<Limit> limits) {
+        if (limits.isEmpty()) return 0;
+        long now = System.currentTimeMillis();
+
+        for (Limit limit : limits) {
+            Long until = blocked.get(limit.key());
+            if (until != null && until > now) {
+                deniedLocally.increment();
+                return until - now;
+            }
+        }
+
+        List<String> keys = new ArrayList<>(limits.size() * 2);
+        List<String> args = new ArrayList<>(limits.size() * 3);
+        for (Limit limit : limits) {
+            long window = limit.windowMillis();
+            long slot = Math.floorDiv(now, window);
+            keys.add(limit.key() + ":" + slot);
+            keys.add(limit.key() + ":" + (slot - 1));
+            args.add(String.valueOf(limit.max()));
+            args.add(String.valueOf(window));
+            args.add(String.valueOf(now - slot * window));
+        }
+
+        List<?> result;
+        try {
+            result = redis.execute(ACQUIRE_SCRIPT, keys, args.toArray());
+        } catch (RuntimeException e) {
+            failedOpen.increment();
+            if (failedOpen.sum() % 1000 == 1) {
+                logger.warn("Rate limiter unavailable, allowing requests: {}", e.getMessage());
+            }
+            return 0;
+        }
+        int index = result == null || result.isEmpty() ? 0 : ((Number) result.get(0)).intValue();
+        if (index == 0) {
+            allowed.increment();
+            return 0;
+        }
+        long wait = ((Number) result.get(1)).longValue();
+        blocked.put(limits.get(index - 1).key(), now + wait, now + wait);
+        denied.increment();
+        return wait;
+    }
+
+    @Override
+    public String statsName() {
+        return "rateLimiter";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return Map.of(
+                "allowed", allowed.sum(),
+                "denied", denied.sum(),
+                "deniedLocally", deniedLocally.sum(),
+                "failedOpen", failedOpen.sum(),
+                "blockedKeys", blocked.stats());
+    }
+}
@@ -0,0 +1,223 @@
+package com.v_disk.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.v_disk.utils.RedisScripts;
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * Opaque, rotating refresh tokens kept in Redis.
+ *
+ * Only the SHA-256 of a token is stored. Every login starts a family; each refresh
+ * consumes the presented token and issues the next one of the same family. Presenting
+ * a token that was already rotated means it leaked (or was replayed), so the whole
+ * family is revoked and both the attacker and the victim must log in again.
+ *
+ * Keys: refresh:token:<hash> -> "userId family", written once and resolved in Java (it
+ * outlives the rotation, which is how a replayed token is recognised). The per-user keys
+ * share the user's hash tag, so each script stays in one cluster slot:
+ * refresh:{userId}:family:<id> -> {current: token hash} and refresh:{userId}:families ->
+ * set of family ids (for revoking every session of a user).
+ */
+@Service
+public class RefreshTokenService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final String TOKEN_PREFIX = "refresh:token:";
+
+    // KEYS[1] family, KEYS[2] user's family set; ARGV[1] token hash, ARGV[2] family id, ARGV[3] ttl
+    private static final String ISSUE_LUA = """
+            local ttl = tonumber(ARGV[3])
+            redis.call('HSET', KEYS[1], 'current', ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ttl)
+            redis.call('SADD', KEYS[2], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ttl)
+            return 1
+            """;
+
+    // KEYS[1] family, KEYS[2] user's family set; ARGV[1] presented hash, ARGV[2] next hash, ARGV[3] family id, ARGV[4] ttl
+    // returns 1 rotated, 0 family revoked or expired, -1 presented token was already rotated (family revoked now)
+    private static final String ROTATE_LUA = """
+            local current = redis.call('HGET', KEYS[1], 'current')
+            if not current then return 0 end
+            if current ~= ARGV[1] then
+              redis.call('DEL', KEYS[1])
+              redis.call('SREM', KEYS[2], ARGV[3])
+              return -1
+            end
+            local ttl = tonumber(ARGV[4])
+            redis.call('HSET', KEYS[1], 'current', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ttl)
+            redis.call('EXPIRE', KEYS[2], ttl)
+            return 1
+            """;
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = RedisScripts.returningLong(ISSUE_LUA);
+    private static final RedisScript<Long> ROTATE_SCRIPT = RedisScripts.returningLong(ROTATE_LUA);
+
+    private final StringRedisTemplate redis;
+    private final TokenRevocationService tokenRevocationService;
+    private final long ttlSeconds;
+    private final SecureRandom random = new SecureRandom();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RefreshTokenService(StringRedisTemplate redis, TokenRevocationService tokenRevocationService,
+            @Value("${jwt.refresh.ttl.seconds:1209600}") long ttlSeconds) {
+        this.redis = redis;
+        this.tokenRevocationService = tokenRevocationService;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * Starts a new family for the user and returns its first token.
+     */
+    public String issue(String userId) {
+        String token = newToken();
+        String hash = JwtService.hash(token);
+        String family = UUID.randomUUID().toString();
+        index(hash, userId, family);
+        redis.execute(ISSUE_SCRIPT, List.of(familyKey(userId, family), familiesKey(userId)),
+                hash, family, String.valueOf(ttlSeconds));
+        issued.increment();
+        return token;
+    }
+
+    public record Rotation(String userId, String refreshToken) {
+    }
+
+    /**
+     * Consumes {@code token} and returns the next token of its family.
+     *
+     * @throws ResponseStatusException 401 when the token is unknown, expired, revoked or reused
+     */
+    public Rotation rotate(String token) {
+        if (token == null || token.isBlank()) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "refresh_token_required");
+        }
+        String hash = JwtService.hash(token);
+        String[] owner = lookup(hash);
+        if (owner == null) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_refresh_token");
+        }
+        String userId = owner[0];
+        String family = owner[1];
+        String next = newToken();
+        String nextHash = JwtService.hash(next);
+        // resolvable before the script makes it current
+        index(nextHash, userId, family);
+        Long result = redis.execute(ROTATE_SCRIPT, List.of(familyKey(userId, family), familiesKey(userId)),
+                hash, nextHash, family, String.valueOf(ttlSeconds));
+        if (result != null && result == 1) {
+            rotated.increment();
+            return new Rotation(userId, next);
+        }
+        redis.delete(TOKEN_PREFIX + nextHash);
+        if (result != null && result == -1) {
+            reused.increment();
+            logger.warn("Refresh token reuse detected for user {}, session family revoked", userId);
+            // the thief may already hold an access token from this family
+            tokenRevocationService.revokeUser(userId);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "refresh_token_reused");
+        }
+        rejected.increment();
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_refresh_token");
+    }
+
+    /**
+     * Ends the session the token belongs to (logout). Unknown tokens are ignored.
+     */
+    public void revoke(String token) {
+        if (token == null || token.isBlank()) return;
+        String[] owner = lookup(JwtService.hash(token));
+        if (owner == null) return;
+        redis.delete(familyKey(owner[0], owner[1]));
+        redis.opsForSet().remove(familiesKey(owner[0]), owner[1]);
+    }
+
+    /**
+     * Ends every session of the user (password change, deletion).
+     */
+    public void revokeAll(String userId) {
+        if (userId == null) return;
+        try {
+            Set<String> families = redis.opsForSet().members(familiesKey(userId));
+            List<String> keys = new ArrayList<>();
+            keys.add(familiesKey(userId));
+            if (families != null) {
+                families.forEach(f -> keys.add(familyKey(userId, f)));
+            }
+            redis.delete(keys);
+        } catch (RuntimeException e) {
+            // families still expire through their TTL
+            logger.warn("Could not revoke refresh tokens of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "refreshTokens";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return Map.of(
+                "issued", issued.sum(),
+                "rotated", rotated.sum(),
+                "reused", reused.sum(),
+                "rejected", rejected.sum());
+    }
+
+    private void index(String hash, String userId, String family) {
+        redis.opsForValue().set(TOKEN_PREFIX + hash, userId + " " + family, Duration.ofSeconds(ttlSeconds));
+    }
+
+    // {userId, family} of a token, or null when unknown or expired
+    private String[] lookup(String hash) {
+        String owner = redis.opsForValue().get(TOKEN_PREFIX + hash);
+        if (owner == null) return null;
+        int sep = owner.indexOf(' ');
+        return sep < 0 ? null : new String[] { owner.substring(0, sep), owner.substring(sep + 1) };
+    }
+
+    private static String familyKey(String userId, String family) {
+        return "refresh:{" + userId + "}:family:" + family;
+    }
+
+    private static String familiesKey(String userId) {
+        return "refresh:{" + userId + "}:families";
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,211 @@
+package com.v_disk.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.utils.RedisScripts;
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * Short-lived stock holds taken at checkout.
+ *
+ * Each vinyl has a Redis counter of reserved copies; a checkout reserves all of
+ * its lines in one Lua call that only succeeds if, for every line,
+ * reserved + qty <= stock (stock read fresh from Mongo). No locks are taken, so
+ * a hot release only costs one atomic script per checkout.
+ *
+ * Holds are committed on approval (the Mongo decrement takes over), released on
+ * fail/cancel, and released by the sweeper once app.checkout.ttl.seconds pass.
+ *
+ * All reservation keys share the {stock} hash tag: a reserve touches the counters of
+ * every vinyl in the cart atomically, which Redis Cluster only allows within one slot.
+ */
+@Service
+public class StockReservationService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String COUNTER_PREFIX = "{stock}:reserved:";
+    private static final String HOLD_PREFIX = "{stock}:hold:";
+    private static final String EXPIRY_KEY = "{stock}:expiry";
+    private static final int RELEASE_ATTEMPTS = 3;
+    private static final int SWEEP_BATCH = 500;
+
+    // KEYS[1] hold hash, KEYS[2] expiry zset, KEYS[3..] counters
+    // ARGV[1] paymentId, ARGV[2] deadline millis, ARGV[3] key ttl seconds, then (vinylId, qty, stock) triples
+    // returns 1 reserved, 0 already held, -i when line i lacks stock
+    private static final String RESERVE_LUA = """
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            local n = #KEYS - 2
+            for i = 1, n do
+              local qty = tonumber(ARGV[3 + (i - 1) * 3 + 2])
+              local stock = tonumber(ARGV[3 + (i - 1) * 3 + 3])
+              local reserved = tonumber(redis.call('GET', KEYS[2 + i])) or 0
+              if reserved + qty > stock then return -i end
+            end
+            local ttl = tonumber(ARGV[3])
+            for i = 1, n do
+              local base = 3 + (i - 1) * 3
+              redis.call('INCRBY', KEYS[2 + i], ARGV[base + 2])
+              redis.call('EXPIRE', KEYS[2 + i], ttl)
+              redis.call('HSET', KEYS[1], ARGV[base + 1], ARGV[base + 2])
+            end
+            redis.call('EXPIRE', KEYS[1], ttl)
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+            return 1
+            """;
+
+    // KEYS[1] hold hash, KEYS[2] expiry zset, KEYS[3..] counters
+    // ARGV[1] paymentId, then (vinylId, qty) pairs as read from the hold
+    // returns the number of lines released, 0 when there was no hold, -1 when the hold
+    // no longer matches what the caller read
+    private static final String RELEASE_LUA = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              redis.call('ZREM', KEYS[2], ARGV[1])
+              return 0
+            end
+            local n = #KEYS - 2
+            if redis.call('HLEN', KEYS[1]) ~= n then return -1 end
+            for i = 1, n do
+              if redis.call('HGET', KEYS[1], ARGV[2 * i]) ~= ARGV[2 * i + 1] then return -1 end
+            end
+            for i = 1, n do
+              if redis.call('DECRBY', KEYS[2 + i], ARGV[2 * i + 1]) <= 0 then
+                redis.call('DEL', KEYS[2 + i])
+              end
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            return n
+            """;
+
+    private static final RedisScript<Long> RESERVE_SCRIPT = RedisScripts.returningLong(RESERVE_LUA);
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScripts.returningLong(RELEASE_LUA);
+
+    private final StringRedisTemplate redis;
+    private final StockService stockService;
+    private final Duration holdTtl;
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public StockReservationService(StringRedisTemplate redis, StockService stockService,
+            @Value("${app.checkout.ttl.seconds:1800}") long ttlSeconds) {
+        this.redis = redis;
+        this.stockService = stockService;
+        this.holdTtl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Holds every quantity for the payment, all or nothing. Holding again for the same payment is a no-op.
+     *
+     * @return false when at least one vinyl has fewer unreserved copies than requested
+     */
+    public boolean reserve(String paymentId, Map<String, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) return true;
+        Map<String, Integer> stock = stockService.currentStock(quantities.keySet());
+
+        List<String> keys = new ArrayList<>(quantities.size() + 2);
+        keys.add(HOLD_PREFIX + paymentId);
+        keys.add(EXPIRY_KEY);
+        List<String> args = new ArrayList<>(3 + quantities.size() * 3);
+        args.add(paymentId);
+        args.add(String.valueOf(System.currentTimeMillis() + holdTtl.toMillis()));
+        // counters and the hold outlive the deadline so only the sweeper removes live holds
+        args.add(String.valueOf(holdTtl.toSeconds() * 2));
+        quantities.forEach((vinylId, qty) -> {
+            keys.add(COUNTER_PREFIX + vinylId);
+            args.add(vinylId);
+            args.add(String.valueOf(qty));
+            args.add(String.valueOf(stock.getOrDefault(vinylId, 0)));
+        });
+
+        Long result = redis.execute(RESERVE_SCRIPT, keys, args.toArray());
+        if (result != null && result < 0) {
+            rejected.increment();
+            return false;
+        }
+        reserved.increment();
+        return true;
+    }
+
+    /**
+     * Drops the hold after the stock was decremented in Mongo for this payment.
+     */
+    public void commit(String paymentId) {
+        if (release0(paymentId) > 0) committed.increment();
+    }
+
+    /**
+     * Gives the held copies back (payment failed or canceled).
+     */
+    public void release(String paymentId) {
+        if (release0(paymentId) > 0) released.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.reservation.sweep-interval-ms:5000}")
+    public void releaseExpired() {
+        Set<String> due = redis.opsForZSet().rangeByScore(EXPIRY_KEY, 0, System.currentTimeMillis(), 0, SWEEP_BATCH);
+        if (due == null || due.isEmpty()) return;
+        for (String paymentId : due) {
+            if (release0(paymentId) > 0) expired.increment();
+        }
+        logger.debug("Released {} expired stock holds", due.size());
+    }
+
+    // the hold's lines are read here so the script gets every counter it touches in KEYS;
+    // the script re-checks them, and a hold replaced in between is simply read again
+    private long release0(String paymentId) {
+        String holdKey = HOLD_PREFIX + paymentId;
+        for (int attempt = 0; attempt < RELEASE_ATTEMPTS; attempt++) {
+            Map<Object, Object> lines = redis.opsForHash().entries(holdKey);
+            List<String> keys = new ArrayList<>(lines.size() + 2);
+            keys.add(holdKey);
+            keys.add(EXPIRY_KEY);
+            List<String> args = new ArrayList<>(1 + lines.size() * 2);
+            args.add(paymentId);
+            lines.forEach((vinylId, qty) -> {
+                keys.add(COUNTER_PREFIX + vinylId);
+                args.add(String.valueOf(vinylId));
+                args.add(String.valueOf(qty));
+            });
+            Long released = redis.execute(RELEASE_SCRIPT, keys, args.toArray());
+            if (released == null) return 0;
+            if (released >= 0) return released;
+        }
+        logger.warn("Stock hold {} kept changing during release, left for the sweeper", paymentId);
+        return 0;
+    }
+
+    @Override
+    public String statsName() {
+        return "stockReservations";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Long active = redis.opsForZSet().zCard(EXPIRY_KEY);
+        return Map.of(
+                "activeHolds", active == null ? 0 : active,
+                "reserved", reserved.sum(),
+                "rejected", rejected.sum(),
+                "committed", committed.sum(),
+                "released", released.sum(),
+                "expired", expired.sum());
+    }
+}
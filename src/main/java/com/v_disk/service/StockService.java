@@ -0,0 +1,123 @@
+package com.v_disk.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.v_disk.model.OrderItem;
+import com.v_disk.model.Vinyl;
+
+/**
+ * Atomic stock decrements for order approval.
+ *
+ * All items of an operation are decremented in one unordered bulk write where
+ * every update is guarded by {@code stock >= needed}, so concurrent approvals
+ * can never oversell. Each decremented document is tagged with the operation id
+ * which lets a partial failure be compensated precisely, then the tag is removed.
+ */
+@Service
+public class StockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockService.class);
+
+    static final String PENDING_FIELD = "pendingDecrements";
+
+    private final MongoTemplate mongoTemplate;
+
+    public StockService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Merges order lines into vinylId -> total quantity (same vinyl may appear twice).
+     */
+    public static Map<String, Integer> quantitiesOf(List<OrderItem> items) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        if (items == null) return out;
+        for (OrderItem it : items) {
+            if (it == null || it.getVinylId() == null) continue;
+            int qty = it.getQuantity() != null ? it.getQuantity() : 1;
+            out.merge(it.getVinylId(), qty, Integer::sum);
+        }
+        return out;
+    }
+
+    /**
+     * Current stock of the given vinyls read straight from Mongo (missing vinyls are absent).
+     */
+    public Map<String, Integer> currentStock(Collection<String> vinylIds) {
+        Query q = Query.query(Criteria.where("_id").in(vinylIds));
+        q.fields().include("stock");
+        Map<String, Integer> out = new HashMap<>();
+        for (Vinyl v : mongoTemplate.find(q, Vinyl.class)) {
+            out.put(v.getId(), v.getStock() != null ? v.getStock() : 0);
+        }
+        return out;
+    }
+
+    /**
+     * Decrements every vinyl by its quantity, all or nothing.
+     *
+     * @param operationId id of the business operation (paymentId), used to tag and roll back
+     * @param quantities  vinylId -> quantity to remove
+     * @return true when every item had enough stock and was decremented
+     */
+    public boolean decrement(String operationId, Map<String, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) return true;
+
+        Instant now = Instant.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vinyl.class);
+        quantities.forEach((vinylId, qty) -> ops.updateOne(
+                Query.query(Criteria.where("_id").is(vinylId)
+                        .and("stock").gte(qty)
+                        .and(PENDING_FIELD).ne(operationId)),
+                new Update()
+                        .inc("stock", -qty)
+                        .set("updatedAt", now)
+                        .inc("version", 1)
+                        .addToSet(PENDING_FIELD, operationId)));
+        BulkWriteResult result = ops.execute();
+
+        if (result.getModifiedCount() == quantities.size()) {
+            clearTag(operationId, quantities);
+            return true;
+        }
+
+        logger.warn("Stock decrement for {} applied to {}/{} vinyls, rolling back", operationId,
+                result.getModifiedCount(), quantities.size());
+        rollback(operationId, quantities);
+        return false;
+    }
+
+    private void rollback(String operationId, Map<String, Integer> quantities) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vinyl.class);
+        quantities.forEach((vinylId, qty) -> ops.updateOne(
+                Query.query(Criteria.where("_id").is(vinylId).and(PENDING_FIELD).is(operationId)),
+                new Update()
+                        .inc("stock", qty)
+                        .inc("version", 1)
+                        .pull(PENDING_FIELD, operationId)));
+        ops.execute();
+    }
+
+    private void clearTag(String operationId, Map<String, Integer> quantities) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(quantities.keySet()).and(PENDING_FIELD).is(operationId)),
+                new Update().pull(PENDING_FIELD, operationId),
+                Vinyl.class);
+    }
+}
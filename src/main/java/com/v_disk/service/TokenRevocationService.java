@@ -0,0 +1,238 @@
+package com.v_disk.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.model.Tokens;
+import com.v_disk.utils.BloomFilter;
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Revocation of access tokens before their exp.
+ *
+ * Redis holds the source of truth: revoked:jti:{jti} for a single token and
+ * revoked:user:{userId} = epoch millis, which revokes every token of the user issued
+ * before it (compared against the iatMs claim, so a login right after the revocation
+ * is not caught by it). Both expire once every token they could match has expired.
+ *
+ * Each node mirrors the revoked entries into a bloom filter fed by pub/sub and rebuilt
+ * from a SCAN periodically (pub/sub is at-most-once). A token that misses the filter,
+ * the common case, is accepted with no network I/O; only filter hits are confirmed
+ * against Redis, and a failed confirmation rejects the token.
+ */
+@Service
+public class TokenRevocationService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    public static final String CHANNEL = "v-disk:auth:revocations";
+
+    private static final String KEY_PREFIX = "revoked:";
+    private static final String JTI = "jti:";
+    private static final String USER = "user:";
+
+    private final StringRedisTemplate redis;
+    private final long accessTtlSeconds;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // filter being rebuilt, also fed by pub/sub so nothing published meanwhile is lost
+    private BloomFilter building;
+    // guards building and the swap, so an entry always reaches the filter that stays
+    private final Object swapLock = new Object();
+    // jtis that hit the filter but were confirmed clean, so a false positive costs one lookup
+    private final TtlCache<String, Boolean> confirmedClean;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder revokedRejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder confirmFailures = new LongAdder();
+    private volatile long lastRebuildEntries;
+
+    public TokenRevocationService(StringRedisTemplate redis, RedisMessageListenerContainer listenerContainer,
+            @Value("${jwt.ttl.seconds:900}") long accessTtlSeconds,
+            @Value("${app.auth.revocation.bloom.expected-insertions:100000}") int expectedInsertions,
+            @Value("${app.auth.revocation.bloom.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redis = redis;
+        this.accessTtlSeconds = accessTtlSeconds;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.confirmedClean = new TtlCache<>(10_000, accessTtlSeconds * 1000);
+        listenerContainer.addMessageListener(
+                (message, pattern) -> addLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Revokes one token (logout).
+     */
+    public void revokeToken(String jti, Date expiresAt) {
+        if (jti == null) return;
+        long ttlMillis = expiresAt == null ? accessTtlSeconds * 1000 : expiresAt.getTime() - System.currentTimeMillis();
+        if (ttlMillis <= 0) return;
+        publish(JTI + jti, "1", Duration.ofMillis(ttlMillis));
+    }
+
+    /**
+     * Revokes every token the user holds now (password change, role change, deletion).
+     */
+    public void revokeUser(String userId) {
+        if (userId == null) return;
+        publish(USER + userId, String.valueOf(System.currentTimeMillis()), Duration.ofSeconds(accessTtlSeconds + 1));
+    }
+
+    public boolean isRevoked(Claims claims) {
+        checks.increment();
+        BloomFilter f = filter;
+        String jti = claims.getId();
+        Object userId = claims.get("userId");
+        boolean jtiHit = jti != null && f.mightContain(JTI + jti);
+        boolean userHit = userId != null && f.mightContain(USER + userId);
+        if (!jtiHit && !userHit) {
+            return false;
+        }
+        filterHits.increment();
+        if (jti != null && confirmedClean.get(jti) != null) {
+            return false;
+        }
+        try {
+            if (jtiHit && Boolean.TRUE.equals(redis.hasKey(KEY_PREFIX + JTI + jti))) {
+                revokedRejected.increment();
+                return true;
+            }
+            if (userHit) {
+                String revokedAt = redis.opsForValue().get(KEY_PREFIX + USER + userId);
+                if (revokedAt != null && issuedBefore(claims, Long.parseLong(revokedAt))) {
+                    revokedRejected.increment();
+                    return true;
+                }
+            }
+        } catch (RuntimeException e) {
+            confirmFailures.increment();
+            logger.warn("Could not confirm revocation of token {}, rejecting it: {}", jti, e.getMessage());
+            return true;
+        }
+        falsePositives.increment();
+        if (jti != null) {
+            confirmedClean.put(jti, Boolean.TRUE);
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the filter from Redis: drops expired entries and picks up messages this
+     * node missed. Runs at startup and then every rebuild-interval-ms.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        synchronized (swapLock) {
+            building = next;
+        }
+        long entries = 0;
+        try (Cursor<String> keys = redis.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                next.add(keys.next().substring(KEY_PREFIX.length()));
+                entries++;
+            }
+            synchronized (swapLock) {
+                filter = next;
+                building = null;
+            }
+            lastRebuildEntries = entries;
+            // a user-wide revocation this node missed on pub/sub must not be bypassed by an
+            // earlier "confirmed clean" answer
+            confirmedClean.invalidateAll();
+            if (entries > expectedInsertions) {
+                logger.warn("{} revoked entries exceed the bloom filter sizing ({}), false positives will rise",
+                        entries, expectedInsertions);
+            }
+        } catch (RuntimeException e) {
+            // keep the current filter, it still has everything received through pub/sub
+            logger.warn("Revocation filter rebuild failed: {}", e.getMessage());
+        } finally {
+            synchronized (swapLock) {
+                building = null;
+            }
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "tokenRevocations";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("checks", checks.sum());
+        out.put("filterHits", filterHits.sum());
+        out.put("revokedRejected", revokedRejected.sum());
+        out.put("falsePositives", falsePositives.sum());
+        out.put("confirmFailures", confirmFailures.sum());
+        out.put("entriesAtLastRebuild", lastRebuildEntries);
+        out.put("filterBits", filter.bitCount());
+        return out;
+    }
+
+    private static boolean issuedBefore(Claims claims, long revokedAtMillis) {
+        // iat is truncated to the second, iatMs is what tells a login right after the revocation apart
+        Object millis = claims.get(Tokens.ISSUED_AT_MILLIS);
+        return !(millis instanceof Number n) || n.longValue() < revokedAtMillis;
+    }
+
+    private void publish(String entry, String value, Duration ttl) {
+        // stored before the local add, so a rebuild that starts in between finds it in its SCAN;
+        // this node sees its own revocation right after, others through the channel
+        try {
+            redis.opsForValue().set(KEY_PREFIX + entry, value, ttl);
+        } catch (RuntimeException e) {
+            // the token still dies at its exp, at most one access-token lifetime later
+            logger.error("Could not store revocation {}: {}", entry, e.getMessage());
+            addLocal(entry);
+            return;
+        }
+        addLocal(entry);
+        try {
+            redis.convertAndSend(CHANNEL, entry);
+        } catch (RuntimeException e) {
+            logger.warn("Revocation broadcast failed, other nodes pick it up on the next rebuild: {}", e.getMessage());
+        }
+    }
+
+    private void addLocal(String entry) {
+        synchronized (swapLock) {
+            filter.add(entry);
+            if (building != null) {
+                building.add(entry);
+            }
+        }
+        if (entry.startsWith(USER)) {
+            // a user-wide revocation may cover tokens confirmed clean earlier
+            confirmedClean.invalidateAll();
+        } else if (entry.startsWith(JTI)) {
+            confirmedClean.invalidate(entry.substring(JTI.length()));
+        }
+    }
+}
@@ -1,47 +1,66 @@
 package com.v_disk.service;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.v_disk.model.User;
-import com.v_disk.repository.UserRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
-    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserDetailsServiceImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
     }
 
+    /**
+     * One projected query per call; the returned principal has everything login and
+     * token issuance need (id, name, roles), so callers must not look the user up again.
+     */
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        
-        // Convert User model to Spring Security UserDetails
-        return new org.springframework.security.core.userdetails.User(
-            user.getEmail(),
-            user.getPassword(),
-            user.isEmailVerified(), // enabled only if email is verified
-            true, // account non-expired
-            true, // credentials non-expired
-            true, // account non-locked
-            getAuthorities(user)
-        );
+    public AuthenticatedUser loadUserByUsername(String email) throws UsernameNotFoundException {
+        Query q = Query.query(Criteria.where("email").is(email));
+        q.fields().include("email", "password", "name", "roles", "emailVerified");
+        User user = mongoTemplate.findOne(q, User.class);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        // enabled only if email is verified
+        return AuthenticatedUser.of(user);
+    }
+
+    /**
+     * Same projection by id, for token refresh. Null when the user no longer exists.
+     */
+    public AuthenticatedUser loadUserById(String id) {
+        Query q = Query.query(Criteria.where("_id").is(id));
+        q.fields().include("email", "password", "name", "roles", "emailVerified");
+        User user = mongoTemplate.findOne(q, User.class);
+        return user == null ? null : AuthenticatedUser.of(user);
     }
-    
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                .collect(Collectors.toList());
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash
+     * has a lower cost than the configured one; only the password field is rewritten.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (user instanceof AuthenticatedUser principal) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(principal.getId())),
+                    new Update().set("password", newPassword).inc("version", 1), User.class);
+            return new AuthenticatedUser(principal.getId(), principal.getUsername(), newPassword, principal.getName(),
+                    principal.getRoles(), principal.isEnabled());
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("email").is(user.getUsername())),
+                new Update().set("password", newPassword).inc("version", 1), User.class);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
     }
 }
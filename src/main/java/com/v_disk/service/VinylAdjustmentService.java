@@ -0,0 +1,152 @@
+package com.v_disk.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.v_disk.dto.vinyl.VinylAdjustmentDTO;
+import com.v_disk.dto.vinyl.VinylAdjustmentResultDTO;
+import com.v_disk.model.Vinyl;
+
+/**
+ * Bulk stock deltas and price changes written as one unordered bulk of guarded
+ * updateOne($inc / $set) calls, without reading the vinyls first.
+ *
+ * Each update only matches when the optional expectedVersion still holds and,
+ * for negative deltas, when stock would not drop below zero. Applied documents
+ * get the request's batch id, so when some updates did not match a single
+ * projected read tells which ones and why.
+ */
+@Service
+public class VinylAdjustmentService {
+
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String VERSION_CONFLICT = "VERSION_CONFLICT";
+    public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+    static final String BATCH_FIELD = "lastAdjustment";
+
+    private final MongoTemplate mongoTemplate;
+    private final VinylCatalogService catalog;
+    private final VinylSnapshotService vinylSnapshotService;
+    private final int maxItems;
+
+    public VinylAdjustmentService(MongoTemplate mongoTemplate, VinylCatalogService catalog,
+            VinylSnapshotService vinylSnapshotService,
+            @Value("${app.vinyl.adjustments.max-items:10000}") int maxItems) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalog = catalog;
+        this.vinylSnapshotService = vinylSnapshotService;
+        this.maxItems = maxItems;
+    }
+
+    public VinylAdjustmentResultDTO apply(List<VinylAdjustmentDTO> items) {
+        check(items);
+
+        String batchId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vinyl.class);
+        for (VinylAdjustmentDTO item : items) {
+            Criteria c = Criteria.where("_id").is(item.vinylId());
+            if (item.expectedVersion() != null) {
+                // documents written before versioning count as version 0
+                c = item.expectedVersion() == 0
+                        ? c.and("version").in(0L, null)
+                        : c.and("version").is(item.expectedVersion());
+            }
+            if (item.stockDelta() != null && item.stockDelta() < 0) {
+                c = c.and("stock").gte(-item.stockDelta());
+            }
+            Update u = new Update()
+                    .inc("version", 1)
+                    .set("updatedAt", now)
+                    .set(BATCH_FIELD, batchId);
+            if (item.stockDelta() != null && item.stockDelta() != 0) u.inc("stock", item.stockDelta());
+            if (item.price() != null) u.set("price", item.price());
+            ops.updateOne(Query.query(c), u);
+        }
+        BulkWriteResult result = ops.execute();
+
+        List<String> ids = items.stream().map(VinylAdjustmentDTO::vinylId).toList();
+        List<String> applied = new ArrayList<>(ids.size());
+        List<VinylAdjustmentResultDTO.Failure> failures = new ArrayList<>();
+        int conflicts = 0;
+        int insufficient = 0;
+        int missing = 0;
+
+        if (result.getMatchedCount() == items.size()) {
+            applied.addAll(ids);
+        } else {
+            Query q = Query.query(Criteria.where("_id").in(ids));
+            q.fields().include("version").include("stock").include(BATCH_FIELD);
+            Map<String, Document> current = new HashMap<>();
+            for (Document d : mongoTemplate.find(q, Document.class, mongoTemplate.getCollectionName(Vinyl.class))) {
+                current.put(String.valueOf(d.get("_id")), d);
+            }
+            for (VinylAdjustmentDTO item : items) {
+                Document d = current.get(item.vinylId());
+                if (d == null) {
+                    missing++;
+                    failures.add(new VinylAdjustmentResultDTO.Failure(item.vinylId(), NOT_FOUND, null, null));
+                    continue;
+                }
+                if (batchId.equals(d.getString(BATCH_FIELD))) {
+                    applied.add(item.vinylId());
+                    continue;
+                }
+                Long version = d.get("version") instanceof Number n ? n.longValue() : null;
+                Integer stock = d.get("stock") instanceof Number n ? n.intValue() : null;
+                long effective = version == null ? 0L : version;
+                if (item.expectedVersion() != null && item.expectedVersion() != effective) {
+                    conflicts++;
+                    failures.add(new VinylAdjustmentResultDTO.Failure(item.vinylId(), VERSION_CONFLICT, version, stock));
+                } else {
+                    insufficient++;
+                    failures.add(new VinylAdjustmentResultDTO.Failure(item.vinylId(), INSUFFICIENT_STOCK, version, stock));
+                }
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            vinylSnapshotService.evict(applied);
+            catalog.evictVinyls(applied);
+        }
+        return new VinylAdjustmentResultDTO(items.size(), applied.size(), conflicts, insufficient, missing, failures);
+    }
+
+    private void check(List<VinylAdjustmentDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No adjustments given");
+        }
+        if (items.size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxItems + " adjustments per request");
+        }
+        Set<String> seen = new HashSet<>();
+        for (VinylAdjustmentDTO item : items) {
+            if (!seen.add(item.vinylId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Duplicate vinylId " + item.vinylId() + ", merge the adjustments");
+            }
+            if (item.stockDelta() == null && item.price() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Adjustment for " + item.vinylId() + " has neither stockDelta nor price");
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.v_disk.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.config.CacheConfig;
+import com.v_disk.model.Vinyl;
+import com.v_disk.repository.VinylRepository;
+import com.v_disk.utils.LatencyStats;
+import com.v_disk.utils.PageCursor;
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * Read-through Redis cache in front of the storefront catalog queries.
+ * Cached methods only run on a miss, so their duration is the cache load latency.
+ */
+@Service
+public class VinylCatalogService implements StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VinylCatalogService.class);
+
+    private static final List<String> CATALOG_CACHES = List.of(
+            CacheConfig.VINYL_LIST, CacheConfig.VINYL_BY_ID, CacheConfig.VINYL_PRINCIPAL, CacheConfig.VINYL_SEARCH);
+
+    private final VinylRepository repo;
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redis;
+    private final Map<String, LatencyStats> loadLatency = new LinkedHashMap<>();
+
+    public VinylCatalogService(VinylRepository repo, CacheManager cacheManager, StringRedisTemplate redis) {
+        this.repo = repo;
+        this.cacheManager = cacheManager;
+        this.redis = redis;
+        CATALOG_CACHES.forEach(name -> loadLatency.put(name, new LatencyStats()));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.VINYL_LIST, key = "#limit + ':' + #offset")
+    public List<Vinyl> list(int limit, int offset) {
+        return loadLatency.get(CacheConfig.VINYL_LIST).time(
+                () -> new ArrayList<>(repo.findWindow(offset, limit)));
+    }
+
+    /**
+     * Keyset page after {@code cursor} (null for the first page). Fetches {@code limit + 1}
+     * documents so the caller can tell whether a next page exists.
+     */
+    @Cacheable(cacheNames = CacheConfig.VINYL_LIST, key = "'c:' + #limit + ':' + (#cursor == null ? '' : #cursor.encode())")
+    public List<Vinyl> page(int limit, PageCursor cursor) {
+        return loadLatency.get(CacheConfig.VINYL_LIST).time(
+                () -> new ArrayList<>(repo.findPage(cursor, limit + 1)));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.VINYL_BY_ID, key = "#id", unless = "#result == null")
+    public Optional<Vinyl> get(String id) {
+        return loadLatency.get(CacheConfig.VINYL_BY_ID).time(() -> repo.findById(id));
+    }
+
+    // sync: a cold entry is loaded by a single thread per node
+    @Cacheable(cacheNames = CacheConfig.VINYL_PRINCIPAL, key = "'all'", sync = true)
+    public List<Vinyl> principal() {
+        return loadLatency.get(CacheConfig.VINYL_PRINCIPAL).time(
+                () -> new ArrayList<>(repo.findByIsPrincipalTrue(true)));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.VINYL_SEARCH, key = "'t:' + #limit + ':' + #page + ':' + #term.trim().toLowerCase()")
+    public List<Vinyl> search(String term, int page, int limit) {
+        return loadLatency.get(CacheConfig.VINYL_SEARCH).time(
+                () -> new ArrayList<>(repo.searchText(term.trim(), page, limit)));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.VINYL_SEARCH, key = "'p:' + #limit + ':' + #prefix.trim().toLowerCase()")
+    public List<Vinyl> suggest(String prefix, int limit) {
+        return loadLatency.get(CacheConfig.VINYL_SEARCH).time(
+                () -> new ArrayList<>(repo.suggest(prefix, limit)));
+    }
+
+    /**
+     * Call after a vinyl is created, edited or deleted.
+     */
+    public void evictVinyl(String id) {
+        evictVinyls(id == null ? List.of() : List.of(id));
+    }
+
+    /**
+     * Call after stock of the given vinyls changed (order approval, restock).
+     * Item entries are evicted by key, list-shaped caches are cleared.
+     */
+    public void evictVinyls(Collection<String> ids) {
+        try {
+            Cache byId = cacheManager.getCache(CacheConfig.VINYL_BY_ID);
+            if (byId != null) {
+                ids.forEach(byId::evict);
+            }
+            clear(CacheConfig.VINYL_LIST);
+            clear(CacheConfig.VINYL_PRINCIPAL);
+            clear(CacheConfig.VINYL_SEARCH);
+            // drop the in-heap principal list on every node
+            redis.convertAndSend(PrincipalVinylCache.INVALIDATION_CHANNEL, "evict");
+        } catch (RuntimeException e) {
+            // entries still expire through their TTL
+            logger.warn("Catalog cache eviction failed for {}: {}", ids, e.getMessage());
+        }
+    }
+
+    /**
+     * Call after bulk writes that touched an unknown set of vinyls (imports).
+     */
+    public void evictAll() {
+        try {
+            for (String name : CATALOG_CACHES) {
+                clear(name);
+            }
+            redis.convertAndSend(PrincipalVinylCache.INVALIDATION_CHANNEL, "evict");
+        } catch (RuntimeException e) {
+            logger.warn("Catalog cache eviction failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "catalogCache";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (String name : CATALOG_CACHES) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            if (cacheManager.getCache(name) instanceof RedisCache redisCache) {
+                CacheStatistics s = redisCache.getStatistics();
+                long lookups = s.getHits() + s.getMisses();
+                entry.put("hits", s.getHits());
+                entry.put("misses", s.getMisses());
+                entry.put("puts", s.getPuts());
+                entry.put("deletes", s.getDeletes());
+                entry.put("hitRatio", lookups == 0 ? 0.0 : (double) s.getHits() / lookups);
+                entry.put("lockWaitMs", s.getLockWaitDuration(TimeUnit.MILLISECONDS));
+            }
+            entry.put("load", loadLatency.get(name).snapshot());
+            out.put(name, entry);
+        }
+        return out;
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.v_disk.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.v_disk.dto.vinyl.VinylCreateDTO;
+import com.v_disk.model.ImportJob;
+import com.v_disk.model.Vinyl;
+
+import jakarta.validation.Validator;
+
+/**
+ * Background catalog import from CSV or NDJSON.
+ *
+ * The upload is spooled to a temp file and the request returns the job id right
+ * away. A worker then validates every row against the VinylCreateDTO rules and
+ * upserts valid rows by (title, artist), case-insensitively, in unordered bulk
+ * writes of app.vinyl.import.batch-size. Within a batch the last row for a given
+ * (title, artist) wins and the earlier ones are reported as row errors. After each
+ * batch it records progress and row errors on the import_jobs document and clears
+ * the catalog caches once.
+ *
+ * CSV needs a header row with title, artist, price, stock and coverPath; gallery
+ * (urls separated by '|') and isPrincipal are optional.
+ */
+@Service
+public class VinylImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VinylImportService.class);
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "artist", "price", "stock", "coverpath");
+
+    private record ParsedRow(long row, VinylCreateDTO dto, String error) {}
+
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VinylCatalogService catalog;
+    private final VinylSnapshotService vinylSnapshotService;
+    private final AsyncTaskExecutor executor;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public VinylImportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper, Validator validator,
+            VinylCatalogService catalog, VinylSnapshotService vinylSnapshotService,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+            @Value("${app.vinyl.import.batch-size:1000}") int batchSize,
+            @Value("${app.vinyl.import.max-errors:1000}") int maxErrors) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.catalog = catalog;
+        this.vinylSnapshotService = vinylSnapshotService;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    public ImportJob start(InputStream body, String format) throws IOException {
+        Path spool = Files.createTempFile("vinyl-import-", "." + format);
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob();
+        job.setFormat(format);
+        job.setStatus(ImportJob.QUEUED);
+        job.setCreatedAt(Instant.now());
+        mongoTemplate.insert(job);
+
+        try {
+            executor.execute(() -> run(job.getId(), spool, format));
+        } catch (TaskRejectedException e) {
+            Files.deleteIfExists(spool);
+            finish(job.getId(), ImportJob.FAILED, "Import queue is full");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Import queue is full, retry later");
+        }
+        return job;
+    }
+
+    public Optional<ImportJob> find(String jobId) {
+        return Optional.ofNullable(mongoTemplate.findById(jobId, ImportJob.class));
+    }
+
+    private void run(String jobId, Path spool, String format) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)),
+                new Update().set("status", ImportJob.RUNNING).set("startedAt", Instant.now()), ImportJob.class);
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            RowSource rows = CSV.equals(format) ? csvRows(reader) : ndjsonRows(reader);
+            List<ParsedRow> batch = new ArrayList<>(batchSize);
+            ParsedRow row;
+            while ((row = rows.next()) != null) {
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    flush(jobId, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(jobId, batch);
+            }
+            finish(jobId, ImportJob.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Vinyl import {} failed: {}", jobId, e.getMessage());
+            finish(jobId, ImportJob.FAILED, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                logger.warn("Could not delete import spool {}: {}", spool, e.getMessage());
+            }
+        }
+    }
+
+    private void flush(String jobId, List<ParsedRow> batch) {
+        List<ImportJob.RowError> errors = new ArrayList<>();
+        // keyed by the natural key: two upserts of one key in an unordered bulk would race
+        Map<List<String>, ParsedRow> byKey = new LinkedHashMap<>();
+        for (ParsedRow r : batch) {
+            String error = r.error() != null ? r.error() : validate(r.dto());
+            if (error != null) {
+                errors.add(new ImportJob.RowError(r.row(), error));
+                continue;
+            }
+            ParsedRow previous = byKey.put(
+                    List.of(Vinyl.searchKey(r.dto().title()), Vinyl.searchKey(r.dto().artist())), r);
+            if (previous != null) {
+                errors.add(new ImportJob.RowError(previous.row(), "Superseded by row " + r.row() + " (same title and artist)"));
+            }
+        }
+        List<ParsedRow> valid = new ArrayList<>(byKey.values());
+
+        long inserted = 0;
+        long updated = 0;
+        if (!valid.isEmpty()) {
+            Instant now = Instant.now();
+            BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vinyl.class);
+            for (ParsedRow r : valid) {
+                VinylCreateDTO d = r.dto();
+                Update u = new Update()
+                        .set("title", d.title())
+                        .set("artist", d.artist())
+                        .set("titleKey", Vinyl.searchKey(d.title()))
+                        .set("artistKey", Vinyl.searchKey(d.artist()))
+                        .set("titleWords", Vinyl.searchWords(d.title()))
+                        .set("artistWords", Vinyl.searchWords(d.artist()))
+                        .set("price", d.price())
+                        .set("stock", d.stock())
+                        .set("coverPath", d.coverPath())
+                        .set("updatedAt", now)
+                        .inc("version", 1)
+                        .setOnInsert("createdAt", now);
+                if (d.gallery() != null) u.set("gallery", d.gallery());
+                if (d.isPrincipal() != null) u.set("isPrincipal", d.isPrincipal());
+                else u.setOnInsert("isPrincipal", Boolean.FALSE);
+                ops.upsert(Query.query(Criteria.where("titleKey").is(Vinyl.searchKey(d.title()))
+                        .and("artistKey").is(Vinyl.searchKey(d.artist()))), u);
+            }
+            BulkWriteResult result;
+            try {
+                result = ops.execute();
+            } catch (BulkOperationException e) {
+                result = e.getResult();
+                for (BulkWriteError err : e.getErrors()) {
+                    // E11000: another import inserted the same title and artist between our match and insert
+                    String message = err.getCode() == DUPLICATE_KEY
+                            ? "Duplicate title and artist (written concurrently by another import)"
+                            : err.getMessage();
+                    errors.add(new ImportJob.RowError(valid.get(err.getIndex()).row(), message));
+                }
+            }
+            inserted = result.getUpserts().size();
+            updated = result.getMatchedCount();
+            // once per batch, not per row
+            catalog.evictAll();
+            vinylSnapshotService.evictAll();
+        }
+
+        Update progress = new Update()
+                .inc("processedRows", batch.size())
+                .inc("inserted", inserted)
+                .inc("updated", updated)
+                .inc("failedRows", errors.size());
+        if (!errors.isEmpty() && maxErrors > 0) {
+            progress.push("errors").slice(maxErrors).each(errors.toArray());
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)), progress, ImportJob.class);
+    }
+
+    private void finish(String jobId, String status, String error) {
+        Update u = new Update().set("status", status).set("finishedAt", Instant.now());
+        if (error != null) u.set("error", error);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)), u, ImportJob.class);
+    }
+
+    private String validate(VinylCreateDTO dto) {
+        var violations = validator.validate(dto);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private RowSource ndjsonRows(BufferedReader reader) {
+        long[] row = {0};
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null && line.isBlank()) {
+                // skip empty lines
+            }
+            if (line == null) return null;
+            long n = ++row[0];
+            try {
+                VinylCreateDTO dto = objectMapper.readValue(line, VinylCreateDTO.class);
+                if (dto == null) return new ParsedRow(n, null, "Row must be a JSON object");
+                return new ParsedRow(n, dto, null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRow(n, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) return () -> null;
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.put(name, i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header must contain title, artist, price, stock and coverPath");
+            }
+        }
+        long[] row = {0};
+        return () -> {
+            List<String> fields;
+            while ((fields = readCsvRecord(reader)) != null && fields.size() == 1 && fields.get(0).isBlank()) {
+                // skip empty lines
+            }
+            if (fields == null) return null;
+            long n = ++row[0];
+            try {
+                return new ParsedRow(n, toDto(fields, columns), null);
+            } catch (IllegalArgumentException e) {
+                return new ParsedRow(n, null, e.getMessage());
+            }
+        };
+    }
+
+    private static VinylCreateDTO toDto(List<String> fields, Map<String, Integer> columns) {
+        String price = column(fields, columns, "price");
+        String stock = column(fields, columns, "stock");
+        String gallery = column(fields, columns, "gallery");
+        String principal = column(fields, columns, "isprincipal");
+        BigDecimal parsedPrice;
+        Integer parsedStock;
+        try {
+            parsedPrice = price == null ? null : new BigDecimal(price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number");
+        }
+        try {
+            parsedStock = stock == null ? null : Integer.valueOf(stock);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stock is not an integer");
+        }
+        return new VinylCreateDTO(
+                column(fields, columns, "title"),
+                column(fields, columns, "artist"),
+                parsedPrice,
+                parsedStock,
+                column(fields, columns, "coverpath"),
+                gallery == null ? null : Arrays.stream(gallery.split("\\|")).map(String::trim).filter(s -> !s.isEmpty()).toList(),
+                principal == null ? null : Boolean.valueOf(principal));
+    }
+
+    // blank cells are null so @NotBlank / @NotNull report them
+    private static String column(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        if (i == null || i >= fields.size()) return null;
+        String v = fields.get(i).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    /**
+     * Reads one RFC 4180 record (quoted fields may contain commas, quotes and line breaks).
+     * Returns null at end of input.
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        List<String> out = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (c == -1) {
+                out.add(field.toString());
+                return out;
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) reader.reset();
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                out.add(field.toString());
+                return out;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.v_disk.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.v_disk.model.OrderItem;
+import com.v_disk.model.Vinyl;
+import com.v_disk.repository.VinylRepository;
+import com.v_disk.utils.StatsContributor;
+import com.v_disk.utils.TtlCache;
+
+/**
+ * Batch lookup of the vinyl data copied into order lines and shown in the cart
+ * (title, artist, price, cover, stock).
+ * Resolves any number of ids with a single projected query, optionally backed by a
+ * short-lived in-process cache (app.vinyl.snapshot-cache.*).
+ */
+@Service
+public class VinylSnapshotService implements StatsContributor {
+
+    private final VinylRepository vinylRepository;
+    private final TtlCache<String, Vinyl> cache;
+    private final boolean cacheEnabled;
+
+    public VinylSnapshotService(VinylRepository vinylRepository,
+            @Value("${app.vinyl.snapshot-cache.enabled:false}") boolean cacheEnabled,
+            @Value("${app.vinyl.snapshot-cache.max-entries:5000}") int maxEntries,
+            @Value("${app.vinyl.snapshot-cache.ttl.seconds:60}") long ttlSeconds) {
+        this.vinylRepository = vinylRepository;
+        this.cacheEnabled = cacheEnabled;
+        this.cache = new TtlCache<>(maxEntries, ttlSeconds * 1000);
+    }
+
+    public Map<String, Vinyl> findSnapshots(Collection<String> ids) {
+        Set<String> wanted = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, Vinyl> out = new HashMap<>();
+        if (wanted.isEmpty()) return out;
+
+        if (cacheEnabled) {
+            for (String id : wanted) {
+                Vinyl v = cache.get(id);
+                if (v != null) out.put(id, v);
+            }
+            wanted.removeAll(out.keySet());
+        }
+        if (!wanted.isEmpty()) {
+            for (Vinyl v : vinylRepository.findSnapshotsByIdIn(wanted)) {
+                out.put(v.getId(), v);
+                if (cacheEnabled) cache.put(v.getId(), v);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Copies the vinyl snapshot into the given order lines.
+     *
+     * @param onlyMissing when true lines that already carry a title are left untouched
+     */
+    public void applyTo(List<OrderItem> items, boolean onlyMissing) {
+        if (items == null || items.isEmpty()) return;
+        List<OrderItem> targets = items.stream()
+                .filter(it -> it != null && it.getVinylId() != null)
+                .filter(it -> !onlyMissing || it.getTitle() == null || it.getTitle().isBlank())
+                .collect(Collectors.toList());
+        if (targets.isEmpty()) return;
+
+        Map<String, Vinyl> snapshots = findSnapshots(targets.stream().map(OrderItem::getVinylId).toList());
+        for (OrderItem it : targets) {
+            Vinyl v = snapshots.get(it.getVinylId());
+            if (v == null) continue;
+            it.setTitle(v.getTitle());
+            it.setArtist(v.getArtist());
+            it.setPrice(v.getPrice());
+            it.setCoverPath(v.getCoverPath());
+        }
+    }
+
+    public void evict(String vinylId) {
+        if (vinylId != null) cache.invalidate(vinylId);
+    }
+
+    public void evict(Collection<String> vinylIds) {
+        if (vinylIds != null) vinylIds.forEach(this::evict);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String statsName() {
+        return "vinylSnapshots";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return Map.of("enabled", cacheEnabled, "cache", cache.stats());
+    }
+}
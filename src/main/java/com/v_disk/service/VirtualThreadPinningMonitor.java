@@ -0,0 +1,134 @@
+package com.v_disk.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import com.v_disk.utils.StatsContributor;
+
+/**
+ * Watches for virtual threads pinned to their carrier (blocking inside synchronized or a
+ * native frame) when spring.threads.virtual.enabled is on. Uses the JFR
+ * jdk.VirtualThreadPinned event in-process, so it runs in production and not only
+ * under -Djdk.tracePinnedThreads.
+ *
+ * Each pinning site (first application frame, or the top frame) is logged once with its
+ * stack and then only counted; counts are on /api/stats.
+ */
+@Service
+public class VirtualThreadPinningMonitor implements DisposableBean, StatsContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.v_disk.";
+    private static final int MAX_SITES = 200;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final boolean enabled;
+    private final long thresholdMillis;
+    private final RecordingStream stream;
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder pinnedMillis = new LongAdder();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+    public VirtualThreadPinningMonitor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.virtual-threads.pinning.enabled:true}") boolean monitorEnabled,
+            @Value("${app.virtual-threads.pinning.threshold-ms:20}") long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+        RecordingStream rs = null;
+        if (virtualThreads && monitorEnabled) {
+            try {
+                rs = new RecordingStream();
+                rs.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+                rs.onEvent(EVENT, this::onPinned);
+                rs.startAsync();
+            } catch (RuntimeException e) {
+                // JFR can be unavailable (e.g. disabled in the JVM); the app runs without the monitor
+                logger.warn("Virtual thread pinning monitor not started: {}", e.getMessage());
+                if (rs != null) rs.close();
+                rs = null;
+            }
+        }
+        this.stream = rs;
+        this.enabled = rs != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        events.increment();
+        pinnedMillis.add(event.getDuration().toMillis());
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = site(frames);
+        LongAdder count = sites.get(site);
+        if (count == null) {
+            if (sites.size() >= MAX_SITES) {
+                site = "other";
+            }
+            LongAdder fresh = new LongAdder();
+            count = sites.putIfAbsent(site, fresh);
+            if (count == null) {
+                count = fresh;
+                logger.warn("Virtual thread pinned for {} ms at {}:\n{}", event.getDuration().toMillis(), site,
+                        frames.stream().limit(LOGGED_FRAMES).map(f -> "\tat " + frame(f)).collect(Collectors.joining("\n")));
+            }
+        }
+        count.increment();
+    }
+
+    @Override
+    public String statsName() {
+        return "virtualThreadPinning";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("thresholdMillis", thresholdMillis);
+        out.put("events", events.sum());
+        out.put("pinnedMillis", pinnedMillis.sum());
+        Map<String, Long> top = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(10)
+                .forEach(e -> top.put(e.getKey(), e.getValue().sum()));
+        out.put("sites", top);
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame f : frames) {
+            if (f.getMethod() != null && f.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return frame(f);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frame(frames.get(0));
+    }
+
+    private static String frame(RecordedFrame f) {
+        if (f.getMethod() == null) return "?";
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+    }
+}
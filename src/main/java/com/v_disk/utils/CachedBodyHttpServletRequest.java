@@ -0,0 +1,142 @@
+package com.v_disk.utils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Reads up to {@code maxBytes} of the body up front so a filter can inspect it,
+ * then replays those bytes followed by whatever was left unread.
+ */
+public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final byte[] head;
+    private final boolean complete;
+    private ReplayInputStream stream;
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        byte[] read = request.getInputStream().readNBytes(maxBytes + 1);
+        this.complete = read.length <= maxBytes;
+        this.head = read;
+    }
+
+    /**
+     * The body when it fits in {@code maxBytes}, otherwise null.
+     */
+    public byte[] getCachedBody() {
+        return complete ? head : null;
+    }
+
+    /**
+     * Always the same stream, like the container's: the cached bytes are replayed once.
+     */
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (stream == null) {
+            stream = new ReplayInputStream(new ByteArrayInputStream(head), complete ? null : super.getInputStream());
+        }
+        return stream;
+    }
+
+    /**
+     * The cached bytes first, then (only when the body was larger than the cache) the
+     * wrapped stream. Non-blocking reads are supported: the listener is told right away
+     * that the cached bytes are available (and, with the whole body in memory, that all
+     * data was read); after that readiness and callbacks come from the wrapped stream.
+     */
+    private static final class ReplayInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream cached;
+        private final ServletInputStream rest;
+
+        ReplayInputStream(ByteArrayInputStream cached, ServletInputStream rest) {
+            this.cached = cached;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = cached.read();
+            if (b >= 0 || rest == null) return b;
+            return rest.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (cached.available() > 0) {
+                return cached.read(b, off, len);
+            }
+            return rest == null ? -1 : rest.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return cached.available() == 0 && (rest == null || rest.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return cached.available() > 0 || rest == null || rest.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            if (listener == null) {
+                throw new NullPointerException("listener");
+            }
+            if (rest != null) {
+                rest.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        listener.onDataAvailable();
+                    }
+
+                    @Override
+                    public void onAllDataRead() throws IOException {
+                        // the wrapped stream can finish before the cached bytes were consumed
+                        if (cached.available() > 0) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        listener.onError(t);
+                    }
+                });
+                if (cached.available() > 0) {
+                    try {
+                        listener.onDataAvailable();
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+                return;
+            }
+            try {
+                listener.onDataAvailable();
+                listener.onAllDataRead();
+            } catch (IOException | RuntimeException e) {
+                listener.onError(e);
+            }
+        }
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String enc = getCharacterEncoding();
+        Charset charset = enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
@@ -0,0 +1,40 @@
+package com.v_disk.utils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free count / average / max latency recorder for stats endpoints.
+ */
+public class LatencyStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public <T> T time(Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        long n = count.sum();
+        double avgMs = n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+        return Map.of(
+                "count", n,
+                "avgMs", avgMs,
+                "maxMs", maxNanos.get() / 1_000_000.0);
+    }
+}
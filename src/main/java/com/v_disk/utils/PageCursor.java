@@ -0,0 +1,55 @@
+package com.v_disk.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Opaque keyset cursor on (createdAt, _id). Encoded as base64url so clients
+ * treat it as a token and never build it themselves.
+ */
+public record PageCursor(Instant createdAt, String id) {
+
+    public String encode() {
+        String raw = createdAt.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new PageCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, sep))), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public static Sort sort(boolean descending) {
+        Sort.Direction dir = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(dir, "createdAt").and(Sort.by(dir, "_id"));
+    }
+
+    /**
+     * Documents strictly after this cursor in {@link #sort(boolean)} order.
+     */
+    public Criteria after(boolean descending) {
+        if (descending) {
+            return new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(createdAt),
+                    Criteria.where("createdAt").is(createdAt).and("_id").lt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").gt(createdAt),
+                Criteria.where("createdAt").is(createdAt).and("_id").gt(id));
+    }
+}
@@ -0,0 +1,194 @@
+package com.v_disk.utils;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * JavaMailSenderImpl that keeps authenticated SMTP sessions open between calls
+ * instead of doing connect + STARTTLS + AUTH for every send.
+ *
+ * At most {@code maxSessions} sessions are open against the relay at once;
+ * callers wait up to {@code acquireTimeoutMillis} for one. A session is closed
+ * after {@code maxMessagesPerSession} messages or {@code maxIdleMillis} without use.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private static final class Session {
+        final Transport transport;
+        int sent;
+        long lastUsedMillis;
+
+        Session(Transport transport) {
+            this.transport = transport;
+            this.lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    private final LinkedBlockingDeque<Session> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final int maxSessions;
+    private final int maxMessagesPerSession;
+    private final long maxIdleMillis;
+    private final long acquireTimeoutMillis;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+
+    public PooledJavaMailSender(int maxSessions, int maxMessagesPerSession, long maxIdleMillis, long acquireTimeoutMillis) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.permits = new Semaphore(this.maxSessions, true);
+        this.maxMessagesPerSession = Math.max(1, maxMessagesPerSession);
+        this.maxIdleMillis = maxIdleMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                failAll(mimeMessages, originalMessages, 0, new IllegalStateException("No SMTP session available"), failedMessages);
+                throw new MailSendException("Timed out waiting for an SMTP session", null, failedMessages);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failAll(mimeMessages, originalMessages, 0, e, failedMessages);
+            throw new MailSendException("Interrupted waiting for an SMTP session", e, failedMessages);
+        }
+
+        Session session = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                if (session == null || session.sent >= maxMessagesPerSession || !session.transport.isConnected()) {
+                    close(session);
+                    session = null;
+                    try {
+                        session = borrow();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (Exception ex) {
+                        failAll(mimeMessages, originalMessages, i, ex, failedMessages);
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        // saveChanges() regenerates it, keep the caller's id
+                        mimeMessage.setHeader("Message-ID", messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    session.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    session.sent++;
+                    messages.increment();
+                } catch (Exception ex) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessage, ex);
+                }
+            }
+        } finally {
+            giveBack(session);
+            permits.release();
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private Session borrow() throws Exception {
+        long now = System.currentTimeMillis();
+        Session s;
+        while ((s = idle.pollFirst()) != null) {
+            if (now - s.lastUsedMillis < maxIdleMillis && s.transport.isConnected()) {
+                reused.increment();
+                return s;
+            }
+            close(s);
+        }
+        Session fresh = new Session(connectTransport());
+        opened.increment();
+        return fresh;
+    }
+
+    private void giveBack(Session session) {
+        if (session == null) return;
+        if (session.sent >= maxMessagesPerSession || !session.transport.isConnected()) {
+            close(session);
+            return;
+        }
+        session.lastUsedMillis = System.currentTimeMillis();
+        idle.offerFirst(session);
+    }
+
+    /**
+     * Closes sessions that have been idle longer than the configured limit.
+     */
+    public void closeIdle() {
+        long now = System.currentTimeMillis();
+        // evicts in place: draining the deque would leave a concurrent borrower with no idle
+        // session to reuse, and it would open one more than maxSessions
+        for (Session s : idle) {
+            if (now - s.lastUsedMillis >= maxIdleMillis && idle.removeFirstOccurrence(s)) {
+                close(s);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Session s;
+        while ((s = idle.pollFirst()) != null) {
+            close(s);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "maxSessions", maxSessions,
+                "inUse", maxSessions - permits.availablePermits(),
+                "idle", idle.size(),
+                "opened", opened.sum(),
+                "reused", reused.sum(),
+                "messages", messages.sum());
+    }
+
+    private static void failAll(MimeMessage[] mimeMessages, Object[] originalMessages, int from, Exception ex,
+            Map<Object, Exception> failedMessages) {
+        for (int j = from; j < mimeMessages.length; j++) {
+            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+        }
+    }
+
+    private static void close(Session session) {
+        if (session == null) return;
+        try {
+            session.transport.close();
+        } catch (Exception e) {
+            logger.debug("Error closing SMTP session: {}", e.getMessage());
+        }
+    }
+}
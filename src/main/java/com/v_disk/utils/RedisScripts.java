@@ -0,0 +1,27 @@
+package com.v_disk.utils;
+
+import java.util.List;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Typed factories for the Lua scripts run through StringRedisTemplate, so no caller
+ * has to declare a raw {@code List} result type.
+ */
+public final class RedisScripts {
+
+    private RedisScripts() {
+    }
+
+    public static RedisScript<Long> returningLong(String lua) {
+        return RedisScript.of(lua, Long.class);
+    }
+
+    /**
+     * A script returning a Lua table: integers come back as Long, strings as String.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static RedisScript<List<Object>> returningList(String lua) {
+        return (RedisScript) RedisScript.of(lua, List.class);
+    }
+}
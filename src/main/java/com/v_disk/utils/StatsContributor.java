@@ -0,0 +1,17 @@
+package com.v_disk.utils;
+
+import java.util.Map;
+
+/**
+ * A bean with runtime counters for /api/stats. Implementations are picked up
+ * automatically; the controller does not need to know about them.
+ */
+public interface StatsContributor {
+
+    /**
+     * Key of this entry in the /api/stats response.
+     */
+    String statsName();
+
+    Map<String, Object> stats();
+}
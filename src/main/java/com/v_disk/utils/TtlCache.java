@@ -0,0 +1,128 @@
+package com.v_disk.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small bounded in-process cache where every entry carries its own expiry.
+ * Reads are lock-free; when the cache grows past {@code maxEntries} expired
+ * entries are purged first and then the entries closest to expiry are dropped.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long defaultTtlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(int maxEntries, long defaultTtlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    public V get(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, e);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    public V getOrLoad(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + defaultTtlMillis);
+    }
+
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+        if (entries.size() > maxEntries) {
+            shrink();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return Map.of(
+                "size", entries.size(),
+                "maxEntries", maxEntries,
+                "hits", h,
+                "misses", m,
+                "evictions", evictions.sum(),
+                "hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+    }
+
+    private void shrink() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) evictions.increment();
+            return expired;
+        });
+        // Still full: drop the entries that would expire soonest (approximate, bounded work)
+        while (entries.size() > maxEntries) {
+            K victim = null;
+            long soonest = Long.MAX_VALUE;
+            int scanned = 0;
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext() && scanned++ < 32) {
+                Map.Entry<K, Entry<V>> candidate = it.next();
+                if (candidate.getValue().expiresAtMillis() < soonest) {
+                    soonest = candidate.getValue().expiresAtMillis();
+                    victim = candidate.getKey();
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim) != null) {
+                evictions.increment();
+            }
+        }
+    }
+}
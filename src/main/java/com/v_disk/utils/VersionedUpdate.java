@@ -0,0 +1,48 @@
+package com.v_disk.utils;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Field-level patch of a single document: only the fields in {@code update} are written
+ * and {@code version} is bumped in the same findAndModify. With an expected version the
+ * write only applies if nobody changed the document since the client read it.
+ */
+public final class VersionedUpdate {
+
+    private VersionedUpdate() {
+    }
+
+    /**
+     * @param expectedVersion version the client last saw, or null to patch unconditionally
+     * @param returnNew       return the document after (true) or before (false) the update
+     * @throws ResponseStatusException 404 when the document does not exist, 409 on a version mismatch
+     */
+    public static <T> T apply(MongoTemplate mongoTemplate, Class<T> type, String id, Long expectedVersion,
+            Update update, boolean returnNew) {
+        Criteria c = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            // documents written before versioning count as version 0
+            c = expectedVersion == 0
+                    ? c.and("version").in(0L, null)
+                    : c.and("version").is(expectedVersion);
+        }
+        update.inc("version", 1);
+
+        T result = mongoTemplate.findAndModify(Query.query(c), update,
+                FindAndModifyOptions.options().returnNew(returnNew), type);
+        if (result != null) {
+            return result;
+        }
+        if (expectedVersion != null && mongoTemplate.exists(Query.query(Criteria.where("_id").is(id)), type)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    type.getSimpleName() + " was modified by someone else, reload and retry");
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, type.getSimpleName() + " not found");
+    }
+}
@@ -0,0 +1,89 @@
+package com.v_disk.bench;
+
+import java.security.Key;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.v_disk.service.JwtService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Token verification cost with 1k and 10k distinct tokens in rotation:
+ * <ul>
+ * <li>{@code rebuildParserPerCall}: the original path, a new parser per call;</li>
+ * <li>{@code prebuiltParser}: shared parser, every call still verifies the HMAC and decodes JSON;</li>
+ * <li>{@code cachedValidateToken}: JwtService.validateToken, verified claims served from the cache.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String ISSUER = "v-disk";
+
+    @Param({ "1000", "10000" })
+    public int distinctTokens;
+
+    private Key key;
+    private JwtService jwtService;
+    private JwtParser parser;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        // cache sized like the default jwt.cache.max-entries
+        jwtService = new JwtService(key, 900, ISSUER, 10_000);
+        parser = Jwts.parserBuilder().setSigningKey(key).requireIssuer(ISSUER).build();
+        tokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            tokens[i] = jwtService.generateToken("user" + i + "@v-disk.test",
+                    Map.of("userId", "u" + i, "roles", List.of("USER"), "name", "User " + i));
+        }
+    }
+
+    private String nextToken() {
+        String t = tokens[next];
+        next = next + 1 == tokens.length ? 0 : next + 1;
+        return t;
+    }
+
+    @Benchmark
+    public Claims rebuildParserPerCall() {
+        return Jwts.parserBuilder().setSigningKey(key).requireIssuer(ISSUER).build()
+                .parseClaimsJws(nextToken()).getBody();
+    }
+
+    @Benchmark
+    public Claims prebuiltParser() {
+        return parser.parseClaimsJws(nextToken()).getBody();
+    }
+
+    @Benchmark
+    public Claims cachedValidateToken() {
+        return jwtService.validateToken(nextToken());
+    }
+}
@@ -0,0 +1,122 @@
+package com.v_disk.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.v_disk.model.Vinyl;
+import com.v_disk.repository.VinylRepository;
+import com.v_disk.repository.VinylRepositoryImpl;
+import com.v_disk.service.VinylSnapshotService;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Resolving the vinyls of a 1, 10 and 50-line cart through the real driver against an
+ * in-memory server on loopback:
+ * <ul>
+ * <li>{@code perLineFindById}: the original checkout path, one findById per line;</li>
+ * <li>{@code findSnapshots}: VinylSnapshotService (cache off), one projected $in query.</li>
+ * </ul>
+ * Loopback round-trips are tens of microseconds; against a remote Mongo the per-line
+ * variant pays the network latency once per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VinylSnapshotBenchmark {
+
+    private static final int CATALOG_SIZE = 500;
+
+    @Param({ "1", "10", "50" })
+    public int cartLines;
+
+    private MongoServer server;
+    private MongoClient client;
+    private VinylRepository vinylRepository;
+    private VinylSnapshotService snapshotService;
+    private List<String> cartIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // no logback config on the bench classpath: the default would log every driver command at DEBUG
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        server = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        String uri = "mongodb://" + server.bind().getHostString() + ":" + server.getLocalAddress().getPort();
+        client = MongoClients.create(uri);
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "vdisk_bench");
+
+        vinylRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(VinylRepository.class, RepositoryFragments.just(new VinylRepositoryImpl(mongoTemplate)));
+        snapshotService = new VinylSnapshotService(vinylRepository, false, 0, 0);
+
+        List<Vinyl> catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Vinyl v = new Vinyl();
+            v.setId(String.format("vinyl-%04d", i));
+            v.setTitle("Title " + i);
+            v.setArtist("Artist " + (i % 40));
+            v.setPrice(new BigDecimal("99.90"));
+            v.setStock(10);
+            v.setCoverPath("/covers/" + i + ".jpg");
+            v.setGallery(List.of("/gallery/" + i + "-1.jpg", "/gallery/" + i + "-2.jpg"));
+            catalog.add(v);
+        }
+        vinylRepository.saveAll(catalog);
+
+        cartIds = new ArrayList<>(cartLines);
+        for (int i = 0; i < cartLines; i++) {
+            cartIds.add(catalog.get((i * 7) % CATALOG_SIZE).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public Map<String, Vinyl> perLineFindById() {
+        Map<String, Vinyl> out = new HashMap<>();
+        for (String id : cartIds) {
+            vinylRepository.findById(id).ifPresent(v -> out.put(id, v));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Map<String, Vinyl> findSnapshots() {
+        return snapshotService.findSnapshots(cartIds);
+    }
+}
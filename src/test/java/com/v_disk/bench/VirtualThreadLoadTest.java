@@ -0,0 +1,325 @@
+package com.v_disk.bench;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.v_disk.demo.VDisksApplication;
+import com.v_disk.model.Order;
+import com.v_disk.model.OrderItem;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * In-process replacement for scripts/load-test.sh: boots the whole application twice
+ * (platform threads, then virtual threads) against mongo-java-server reached through a
+ * proxy that delays every Mongo reply, plus jedis-mock for Redis, and drives
+ * GET /api/orders/by-customer/{userId} (uncached, one Mongo query per request) with a
+ * fixed number of concurrent clients.
+ *
+ * Off by default:
+ * <pre>
+ * mvn test -Dtest=VirtualThreadLoadTest -Dloadtest=true [-Dloadtest.concurrency=400 -Dloadtest.latencyMs=200
+ *     -Dloadtest.warmupSeconds=10 -Dloadtest.measureSeconds=20 -Dloadtest.mongoMaxPoolSize=100]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class VirtualThreadLoadTest {
+
+    private static final String USER_ID = "load-user";
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+    private static final long LATENCY_MS = Long.getLong("loadtest.latencyMs", 200);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmupSeconds", 10);
+    private static final int MEASURE_SECONDS = Integer.getInteger("loadtest.measureSeconds", 20);
+    // the driver default; every in-flight request holds one connection for the whole round-trip
+    private static final int MONGO_MAX_POOL_SIZE = Integer.getInteger("loadtest.mongoMaxPoolSize", 100);
+
+    private record Result(boolean virtual, long requests, long errors, double seconds, long p50Millis, long p99Millis,
+            long maxMillis) {
+        @Override
+        public String toString() {
+            return String.format("virtual=%-5s  req/s=%7.1f  p50=%5d ms  p99=%5d ms  max=%5d ms  errors=%d",
+                    virtual, requests / seconds, p50Millis, p99Millis, maxMillis, errors);
+        }
+    }
+
+    @Test
+    void platformVersusVirtualThreadsUnderSlowMongo() throws Exception {
+        // devtools is on the test classpath; its restarter would fork a second classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        MongoServer mongo = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        mongo.bind();
+        RedisServer redis = RedisServer.newRedisServer();
+        redis.start();
+        seedOrders(mongo.getLocalAddress().getPort());
+
+        List<Result> results = new ArrayList<>();
+        try (LatencyProxy proxy = new LatencyProxy(mongo.getLocalAddress().getPort(), LATENCY_MS)) {
+            for (boolean virtual : new boolean[] { false, true }) {
+                results.add(run(virtual, proxy.port(), redis));
+            }
+        } finally {
+            redis.stop();
+            mongo.shutdownNow();
+        }
+
+        System.out.printf("%n=== %d clients, Mongo +%d ms per reply, driver maxPoolSize=%d, %d CPUs ===%n",
+                CONCURRENCY, LATENCY_MS, MONGO_MAX_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+        results.forEach(System.out::println);
+        assertThat(results).allSatisfy(r -> assertThat(r.requests()).isPositive());
+    }
+
+    private static void seedOrders(int mongoPort) {
+        try (MongoClient client = MongoClients.create("mongodb://127.0.0.1:" + mongoPort)) {
+            MongoTemplate template = new MongoTemplate(client, "vdisk_load");
+            for (int i = 0; i < 5; i++) {
+                OrderItem item = new OrderItem();
+                item.setVinylId("vinyl-" + i);
+                item.setQuantity(1);
+                Order o = new Order();
+                o.setUserId(USER_ID);
+                o.setItems(List.of(item));
+                o.setQt(1);
+                o.setCreatedAt(Instant.now());
+                template.insert(o);
+            }
+        }
+    }
+
+    private static Result run(boolean virtual, int mongoProxyPort, RedisServer redis) throws Exception {
+        byte[] secret = new byte[32];
+        ThreadLocalRandom.current().nextBytes(secret);
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.threads.virtual.enabled", virtual);
+        props.put("spring.data.mongodb.uri",
+                "mongodb://127.0.0.1:" + mongoProxyPort + "/vdisk_load?maxPoolSize=" + MONGO_MAX_POOL_SIZE);
+        props.put("spring.data.mongodb.auto-index-creation", false);
+        props.put("spring.data.redis.url", "redis://" + redis.getHost() + ":" + redis.getBindPort());
+        props.put("jwt.secret.base64", Base64.getEncoder().encodeToString(secret));
+        props.put("server.port", 0);
+        // every client comes from 127.0.0.1; the limiter is not what is measured here
+        props.put("app.rate-limit.enabled", false);
+        props.put("logging.level.root", "WARN");
+
+        // command-line arguments, so they win over the placeholders in application.yml
+        String[] args = props.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(VDisksApplication.class).run(args);
+        try {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            return drive(virtual, URI.create("http://127.0.0.1:" + port + "/api/orders/by-customer/" + USER_ID));
+        } finally {
+            ctx.close();
+        }
+    }
+
+    private static Result drive(boolean virtual, URI uri) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(MEASURE_SECONDS);
+        List<long[]> perClient = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        int[] counts = new int[CONCURRENCY];
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONCURRENCY; c++) {
+                long[] latencies = new long[10_000];
+                perClient.add(latencies);
+                int client = c;
+                clients.submit(() -> {
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= measureTo) return;
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (IOException e) {
+                            ok = false;
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        long end = System.nanoTime();
+                        if (start < measureFrom || end > measureTo) continue;
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        } else if (counts[client] < latencies.length) {
+                            latencies[counts[client]++] = end - start;
+                        }
+                    }
+                });
+            }
+        }
+
+        int total = 0;
+        for (int n : counts) total += n;
+        long[] all = new long[total];
+        int at = 0;
+        for (int c = 0; c < CONCURRENCY; c++) {
+            System.arraycopy(perClient.get(c), 0, all, at, counts[c]);
+            at += counts[c];
+        }
+        Arrays.sort(all);
+        return new Result(virtual, total, errors.get(), MEASURE_SECONDS,
+                millis(all, 0.50), millis(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1_000_000);
+    }
+
+    private static long millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1_000_000;
+    }
+
+    /**
+     * TCP forwarder that holds every chunk coming back from the server for a fixed delay
+     * (like toxiproxy's latency toxic on the downstream). Chunks are delayed, not
+     * serialized, so pipelined replies on one connection keep their spacing.
+     */
+    private static final class LatencyProxy implements AutoCloseable {
+
+        private record Chunk(long dueNanos, byte[] data) {
+        }
+
+        private static final byte[] EOF = new byte[0];
+
+        private final ServerSocket socket;
+        private final int upstreamPort;
+        private final long delayNanos;
+        private final ExecutorService pumps = Executors.newVirtualThreadPerTaskExecutor();
+
+        LatencyProxy(int upstreamPort, long delayMillis) throws IOException {
+            this.socket = new ServerSocket(0, 1000, InetAddress.getLoopbackAddress());
+            this.upstreamPort = upstreamPort;
+            this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            pumps.submit(this::acceptLoop);
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    Socket upstream = new Socket(InetAddress.getLoopbackAddress(), upstreamPort);
+                    client.setTcpNoDelay(true);
+                    upstream.setTcpNoDelay(true);
+                    pumps.submit(() -> copy(client.getInputStream(), upstream.getOutputStream(), client, upstream));
+                    LinkedBlockingQueue<Chunk> delayed = new LinkedBlockingQueue<>();
+                    pumps.submit(() -> read(upstream.getInputStream(), delayed, client, upstream));
+                    pumps.submit(() -> release(delayed, client.getOutputStream(), client, upstream));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private static Void copy(InputStream in, OutputStream out, Socket a, Socket b) {
+            byte[] buf = new byte[16 * 1024];
+            try {
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    out.write(buf, 0, n);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // either side closed
+            } finally {
+                closeQuietly(a, b);
+            }
+            return null;
+        }
+
+        private Void read(InputStream in, LinkedBlockingQueue<Chunk> delayed, Socket a, Socket b) {
+            byte[] buf = new byte[16 * 1024];
+            try {
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    delayed.add(new Chunk(System.nanoTime() + delayNanos, Arrays.copyOf(buf, n)));
+                }
+            } catch (IOException e) {
+                // either side closed
+            } finally {
+                delayed.add(new Chunk(System.nanoTime() + delayNanos, EOF));
+            }
+            return null;
+        }
+
+        private static Void release(LinkedBlockingQueue<Chunk> delayed, OutputStream out, Socket a, Socket b) {
+            try {
+                while (true) {
+                    Chunk chunk = delayed.take();
+                    long wait = chunk.dueNanos() - System.nanoTime();
+                    if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                    if (chunk.data() == EOF) return null;
+                    out.write(chunk.data());
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // either side closed
+            } finally {
+                closeQuietly(a, b);
+            }
+            return null;
+        }
+
+        private static void closeQuietly(Socket a, Socket b) {
+            try {
+                a.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            try {
+                b.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            pumps.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.v_disk.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.BsonValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.v_disk.model.User;
+import com.v_disk.repository.EmailVerificationTokenRepository;
+import com.v_disk.repository.UserRepository;
+import com.v_disk.service.EmailVerificationService;
+import com.v_disk.service.JwtService;
+import com.v_disk.service.PrincipalCacheService;
+import com.v_disk.service.RefreshTokenService;
+import com.v_disk.service.TokenRevocationService;
+import com.v_disk.service.UserDetailsServiceImpl;
+import com.v_disk.utils.ResponseJSON;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Login goes through the real DaoAuthenticationProvider and UserDetailsServiceImpl with a
+ * mocked MongoTemplate, so every query the flow issues is visible to Mockito. One test
+ * repeats the flow against an in-memory Mongo and counts the commands the driver sends.
+ */
+class AuthControllerLoginTest {
+
+    private static final String EMAIL = "ana@v-disk.test";
+    private static final String PASSWORD = "correct horse";
+    private static final String HASH = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+    private MongoTemplate mongoTemplate;
+    private UserRepository userRepository;
+    private JwtService jwtService;
+    private AuthController controller;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(User.class))).thenReturn(user());
+        userRepository = mock(UserRepository.class);
+        controller = controller(mongoTemplate);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void successfulLoginRunsExactlyOneUsersQuery() {
+        ResponseEntity<ResponseJSON<AuthController.TokenResponse>> response = controller.login(request(PASSWORD));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        AuthController.TokenResponse tokens = response.getBody().getData();
+        assertThat(tokens.getUser().getId()).isEqualTo("u1");
+        assertThat(tokens.getUser().getName()).isEqualTo("Ana");
+        assertThat(tokens.getRefreshToken()).isEqualTo("refresh-1");
+        assertThat(jwtService.validateToken(tokens.getToken()).get("userId")).isEqualTo("u1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).findOne(query.capture(), eq(User.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(userRepository);
+        assertThat(query.getValue().getQueryObject().get("email")).isEqualTo(EMAIL);
+        // projected: the fields token issuance needs, nothing else
+        assertThat(query.getValue().getFieldsObject().keySet())
+                .containsExactlyInAnyOrder("email", "password", "name", "roles", "emailVerified");
+    }
+
+    @Test
+    void badPasswordAlsoRunsOneQuery() {
+        ResponseEntity<ResponseJSON<AuthController.TokenResponse>> response = controller.login(request("wrong"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(User.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void successfulLoginSendsOneFindOnUsersToTheDriver() {
+        MongoServer server = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        server.bind();
+        List<String> commands = new CopyOnWriteArrayList<>();
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                // the command's first value is its target collection, when it has one
+                BsonValue target = event.getCommand().get(event.getCommandName());
+                commands.add(event.getCommandName() + (target != null && target.isString() ? " " + target.asString().getValue() : ""));
+            }
+        };
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://127.0.0.1:" + server.getLocalAddress().getPort()))
+                .addCommandListener(listener)
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            MongoTemplate realTemplate = new MongoTemplate(client, "login_test");
+            realTemplate.insert(user());
+            AuthController realController = controller(realTemplate);
+            commands.clear();
+
+            ResponseEntity<ResponseJSON<AuthController.TokenResponse>> response = realController.login(request(PASSWORD));
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(commands).containsExactly("find users");
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    private AuthController controller(MongoTemplate template) {
+        // same cost as the stored hash, so no rehash-on-login write
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(template);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        jwtService = new JwtService(Keys.secretKeyFor(SignatureAlgorithm.HS256), 900, "v-disk", 100);
+        RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+        when(refreshTokenService.issue("u1")).thenReturn("refresh-1");
+
+        return new AuthController(
+                mock(EmailVerificationService.class),
+                new ProviderManager(provider),
+                jwtService,
+                userRepository,
+                passwordEncoder,
+                mock(EmailVerificationTokenRepository.class),
+                mock(PrincipalCacheService.class),
+                template,
+                refreshTokenService,
+                userDetailsService,
+                mock(TokenRevocationService.class));
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId("u1");
+        user.setEmail(EMAIL);
+        user.setName("Ana");
+        user.setPassword(HASH);
+        user.setRoles(Set.of("USER"));
+        user.setEmailVerified(true);
+        return user;
+    }
+
+    private static AuthController.LoginRequest request(String password) {
+        AuthController.LoginRequest req = new AuthController.LoginRequest();
+        req.setEmail(EMAIL);
+        req.setPassword(password);
+        return req;
+    }
+}
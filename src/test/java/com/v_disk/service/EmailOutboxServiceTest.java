@@ -0,0 +1,153 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.v_disk.model.EmailOutboxMessage;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Claim and outcome writes against an in-memory Mongo; the worker pool is shut down
+ * (waiting for its tasks) before each assertion.
+ */
+class EmailOutboxServiceTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private JavaMailSender mailSender;
+    private ThreadPoolTaskExecutor executor;
+    private EmailOutboxService outbox;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        server = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        server.bind();
+        client = MongoClients.create("mongodb://127.0.0.1:" + server.getLocalAddress().getPort());
+        mongoTemplate = new MongoTemplate(client, "outbox_test");
+
+        mailSender = mock(JavaMailSender.class);
+        ObjectProvider<JavaMailSender> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mailSender);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+
+        outbox = new EmailOutboxService(mongoTemplate, provider, executor, 10, MAX_ATTEMPTS, 30, 3600, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void abandonedLeaseIsReclaimedAsANewAttempt() {
+        String id = insert(EmailOutboxMessage.SENDING, 1, Instant.now().minusSeconds(1), "crashed-worker");
+
+        outbox.poll();
+        executor.shutdown();
+
+        EmailOutboxMessage m = mongoTemplate.findById(id, EmailOutboxMessage.class);
+        assertThat(m.getStatus()).isEqualTo(EmailOutboxMessage.SENT);
+        assertThat(m.getAttempts()).isEqualTo(2);
+        assertThat(m.getClaimToken()).isNull();
+    }
+
+    @Test
+    void abandonedLastAttemptIsDeadLettered() {
+        String id = insert(EmailOutboxMessage.SENDING, MAX_ATTEMPTS, Instant.now().minusSeconds(1), "crashed-worker");
+
+        outbox.poll();
+        executor.shutdown();
+
+        EmailOutboxMessage m = mongoTemplate.findById(id, EmailOutboxMessage.class);
+        assertThat(m.getStatus()).isEqualTo(EmailOutboxMessage.DEAD);
+        assertThat(m.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        verify(mailSender, never()).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void failedSendOnTheLastAttemptIsDeadLettered() {
+        String id = insert(EmailOutboxMessage.PENDING, MAX_ATTEMPTS - 1, null, null);
+        doAnswer(inv -> { throw new IllegalStateException("relay down"); })
+                .when(mailSender).send(any(SimpleMailMessage[].class));
+
+        outbox.poll();
+        executor.shutdown();
+
+        EmailOutboxMessage m = mongoTemplate.findById(id, EmailOutboxMessage.class);
+        assertThat(m.getStatus()).isEqualTo(EmailOutboxMessage.DEAD);
+        assertThat(m.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(m.getLastError()).isEqualTo("relay down");
+    }
+
+    @Test
+    void workerThatLostItsClaimDoesNotOverwriteTheNewOwner() {
+        String id = insert(EmailOutboxMessage.PENDING, 0, null, null);
+        Instant reclaimedUntil = Instant.now().plusSeconds(600);
+        // while the first worker is still sending, its lease runs out and another instance reclaims
+        doAnswer(inv -> {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                    new Update().set("claimToken", "other-instance").set("lockedUntil", reclaimedUntil).inc("attempts", 1),
+                    EmailOutboxMessage.class);
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        outbox.poll();
+        executor.shutdown();
+
+        EmailOutboxMessage m = mongoTemplate.findById(id, EmailOutboxMessage.class);
+        assertThat(m.getStatus()).isEqualTo(EmailOutboxMessage.SENDING);
+        assertThat(m.getClaimToken()).isEqualTo("other-instance");
+        assertThat(m.getSentAt()).isNull();
+    }
+
+    private String insert(String status, int attempts, Instant lockedUntil, String claimToken) {
+        EmailOutboxMessage m = new EmailOutboxMessage();
+        m.setTo("ana@v-disk.test");
+        m.setSubject("Order confirmed");
+        m.setBody("Thanks!");
+        m.setStatus(status);
+        m.setAttempts(attempts);
+        m.setNextAttemptAt(Instant.now().minusSeconds(5));
+        m.setLockedUntil(lockedUntil);
+        m.setClaimToken(claimToken);
+        m.setCreatedAt(Instant.now().minusSeconds(5));
+        return mongoTemplate.insert(m).getId();
+    }
+}
@@ -0,0 +1,86 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.v_disk.service.RateLimiterService.Limit;
+
+import io.lettuce.core.cluster.SlotHash;
+
+/**
+ * The acquire script runs for real on jedis-mock through Lettuce.
+ */
+class RateLimiterServiceTest {
+
+    private static final long HOUR = 3_600_000;
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private RateLimiterService limiter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        limiter = new RateLimiterService(redis, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void deniesOnceTheWindowIsFullAndThenAnswersLocally() {
+        List<Limit> limits = List.of(new Limit("ratelimit:{login}:ip:1.2.3.4", 2, HOUR));
+
+        assertThat(limiter.acquire(limits)).isZero();
+        assertThat(limiter.acquire(limits)).isZero();
+        long wait = limiter.acquire(limits);
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(HOUR);
+        assertThat(limiter.acquire(limits)).isPositive();
+        assertThat(limiter.stats()).containsEntry("allowed", 2L).containsEntry("denied", 1L)
+                .containsEntry("deniedLocally", 1L);
+    }
+
+    @Test
+    void aDeniedLimitDoesNotCountAgainstTheOthers() {
+        Limit perIp = new Limit("ratelimit:{login}:ip:1.2.3.4", 10, HOUR);
+        Limit global = new Limit("ratelimit:{login}:all", 1, HOUR);
+
+        assertThat(limiter.acquire(List.of(perIp, global))).isZero();
+        assertThat(limiter.acquire(List.of(perIp, global))).isPositive();
+
+        long slot = System.currentTimeMillis() / HOUR;
+        assertThat(redis.opsForValue().get(perIp.key() + ":" + slot)).isEqualTo("1");
+    }
+
+    @Test
+    void countersAreTheDeclaredWindowKeysInTheScopeSlot() {
+        limiter.acquire(List.of(new Limit("ratelimit:{login}:ip:1.2.3.4", 5, HOUR),
+                new Limit("ratelimit:{login}:all", 5, HOUR)));
+
+        long slot = System.currentTimeMillis() / HOUR;
+        Set<String> keys = redis.keys("*");
+        assertThat(keys).containsExactlyInAnyOrder("ratelimit:{login}:ip:1.2.3.4:" + slot, "ratelimit:{login}:all:" + slot);
+        assertThat(keys).extracting(SlotHash::getSlot).containsOnly(SlotHash.getSlot("{login}"));
+        assertThat(redis.getExpire("ratelimit:{login}:all:" + slot)).isPositive();
+    }
+}
@@ -0,0 +1,116 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.fppt.jedismock.RedisServer;
+
+import io.lettuce.core.cluster.SlotHash;
+
+/**
+ * Rotation scripts run for real on jedis-mock through Lettuce.
+ */
+class RefreshTokenServiceTest {
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private TokenRevocationService revocations;
+    private RefreshTokenService refreshTokens;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        revocations = mock(TokenRevocationService.class);
+        refreshTokens = new RefreshTokenService(redis, revocations, 3600);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void rotationHandsOutTheNextTokenOfTheFamily() {
+        String first = refreshTokens.issue("u1");
+
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(first);
+        RefreshTokenService.Rotation again = refreshTokens.rotate(rotation.refreshToken());
+
+        assertThat(rotation.userId()).isEqualTo("u1");
+        assertThat(rotation.refreshToken()).isNotEqualTo(first);
+        assertThat(again.userId()).isEqualTo("u1");
+        verify(revocations, never()).revokeUser("u1");
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        String first = refreshTokens.issue("u1");
+        String second = refreshTokens.rotate(first).refreshToken();
+        String otherSession = refreshTokens.issue("u1");
+
+        assertUnauthorized(() -> refreshTokens.rotate(first), "refresh_token_reused");
+
+        verify(revocations).revokeUser("u1");
+        // the legitimate holder's token died with its family, other sessions did not
+        assertUnauthorized(() -> refreshTokens.rotate(second), "invalid_refresh_token");
+        assertThat(refreshTokens.rotate(otherSession).userId()).isEqualTo("u1");
+        assertThat(refreshTokens.stats()).containsEntry("reused", 1L);
+    }
+
+    @Test
+    void unknownTokensAreRejected() {
+        assertUnauthorized(() -> refreshTokens.rotate("not-a-token"), "invalid_refresh_token");
+        assertUnauthorized(() -> refreshTokens.rotate(" "), "refresh_token_required");
+    }
+
+    @Test
+    void revokeEndsOneSessionAndRevokeAllEndsEveryOne() {
+        String a = refreshTokens.issue("u1");
+        String b = refreshTokens.issue("u1");
+        String c = refreshTokens.issue("u1");
+        String other = refreshTokens.issue("u2");
+
+        refreshTokens.revoke(a);
+        assertUnauthorized(() -> refreshTokens.rotate(a), "invalid_refresh_token");
+        String bNext = refreshTokens.rotate(b).refreshToken();
+
+        refreshTokens.revokeAll("u1");
+        assertUnauthorized(() -> refreshTokens.rotate(bNext), "invalid_refresh_token");
+        assertUnauthorized(() -> refreshTokens.rotate(c), "invalid_refresh_token");
+        assertThat(refreshTokens.rotate(other).userId()).isEqualTo("u2");
+    }
+
+    @Test
+    void scriptedKeysShareTheUsersSlot() {
+        refreshTokens.rotate(refreshTokens.issue("u1"));
+        refreshTokens.issue("u1");
+
+        assertThat(redis.keys("refresh:{u1}:*")).hasSize(3)
+                .extracting(SlotHash::getSlot).containsOnly(SlotHash.getSlot("{u1}"));
+    }
+
+    private static void assertUnauthorized(Runnable call, String reason) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(reason));
+    }
+}
@@ -0,0 +1,96 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.fppt.jedismock.RedisServer;
+
+import io.lettuce.core.cluster.SlotHash;
+
+/**
+ * Reserve/release scripts run for real on jedis-mock through Lettuce.
+ */
+class StockReservationServiceTest {
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private StockReservationService reservations;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+
+        StockService stockService = mock(StockService.class);
+        when(stockService.currentStock(any())).thenReturn(Map.of("v1", 3, "v2", 1));
+        reservations = new StockReservationService(redis, stockService, 1800);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void reserveIsAllOrNothingAcrossVinyls() {
+        assertThat(reservations.reserve("pay-1", cart("v1", 2, "v2", 1))).isTrue();
+        // v1 still has a copy left, v2 does not: nothing of this cart is held
+        assertThat(reservations.reserve("pay-2", cart("v1", 1, "v2", 1))).isFalse();
+
+        assertThat(redis.opsForValue().get("{stock}:reserved:v1")).isEqualTo("2");
+        assertThat(redis.opsForValue().get("{stock}:reserved:v2")).isEqualTo("1");
+        assertThat(redis.hasKey("{stock}:hold:pay-2")).isFalse();
+    }
+
+    @Test
+    void releaseGivesBackEveryLineOnce() {
+        reservations.reserve("pay-1", cart("v1", 2, "v2", 1));
+        reservations.reserve("pay-2", cart("v1", 1));
+
+        reservations.release("pay-1");
+        reservations.release("pay-1");
+
+        assertThat(redis.opsForValue().get("{stock}:reserved:v1")).isEqualTo("1");
+        assertThat(redis.hasKey("{stock}:reserved:v2")).isFalse();
+        assertThat(redis.hasKey("{stock}:hold:pay-1")).isFalse();
+        assertThat(redis.opsForZSet().score("{stock}:expiry", "pay-1")).isNull();
+        assertThat(reservations.stats()).containsEntry("released", 1L).containsEntry("activeHolds", 1L);
+    }
+
+    @Test
+    void everyKeyLivesInOneClusterSlot() {
+        reservations.reserve("pay-1", cart("v1", 1, "v2", 1));
+        reservations.reserve("pay-2", cart("v1", 1));
+
+        Set<String> keys = redis.keys("*");
+        assertThat(keys).hasSize(5);
+        assertThat(keys).extracting(SlotHash::getSlot).containsOnly(SlotHash.getSlot("{stock}"));
+    }
+
+    private static Map<String, Integer> cart(Object... idQty) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (int i = 0; i < idQty.length; i += 2) {
+            out.put((String) idQty[i], (Integer) idQty[i + 1]);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,145 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.v_disk.model.Tokens;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Revocations are stored on jedis-mock; pub/sub delivery is simulated through the
+ * listener the service registers.
+ */
+class TokenRevocationServiceTest {
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private MessageListener channel;
+    private TokenRevocationService revocations;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        redis = spy(new StringRedisTemplate(connectionFactory));
+        revocations = newService();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void tokenMissingTheFilterIsAcceptedWithoutAskingRedis() {
+        assertThat(revocations.isRevoked(token("j1", "u1", System.currentTimeMillis()))).isFalse();
+
+        assertThat(revocations.stats()).containsEntry("checks", 1L).containsEntry("filterHits", 0L);
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndSiblingsAreNot() {
+        revocations.revokeToken("j1", new Date(System.currentTimeMillis() + 60_000));
+
+        assertThat(revocations.isRevoked(token("j1", "u1", System.currentTimeMillis()))).isTrue();
+        assertThat(revocations.isRevoked(token("j2", "u1", System.currentTimeMillis()))).isFalse();
+        assertThat(redis.getExpire("revoked:jti:j1")).isBetween(1L, 60L);
+    }
+
+    @Test
+    void userRevocationOnlyCoversTokensIssuedBeforeIt() {
+        long now = System.currentTimeMillis();
+        revocations.revokeUser("u1");
+
+        assertThat(revocations.isRevoked(token("old", "u1", now - 1))).isTrue();
+        assertThat(revocations.isRevoked(token("new", "u1", System.currentTimeMillis() + 1))).isFalse();
+        assertThat(revocations.isRevoked(token("other", "u2", now - 1))).isFalse();
+    }
+
+    @Test
+    void picksUpOtherNodesThroughPubSubAndRebuild() {
+        // another node stores and broadcasts
+        redis.opsForValue().set("revoked:jti:j1", "1", Duration.ofMinutes(1));
+        channel.onMessage(new DefaultMessage(TokenRevocationService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "jti:j1".getBytes(StandardCharsets.UTF_8)), null);
+        // another node stores but the broadcast is lost
+        redis.opsForValue().set("revoked:jti:j2", "1", Duration.ofMinutes(1));
+
+        assertThat(revocations.isRevoked(token("j1", "u1", System.currentTimeMillis()))).isTrue();
+        assertThat(revocations.isRevoked(token("j2", "u1", System.currentTimeMillis()))).isFalse();
+
+        revocations.rebuild();
+        assertThat(revocations.isRevoked(token("j2", "u1", System.currentTimeMillis()))).isTrue();
+        assertThat(revocations.stats()).containsEntry("entriesAtLastRebuild", 2L);
+    }
+
+    @Test
+    void revocationDuringARebuildSurvivesTheSwap() {
+        long issuedAt = System.currentTimeMillis() - 1_000;
+        doAnswer(inv -> {
+            revocations.revokeUser("u1");
+            return inv.callRealMethod();
+        }).when(redis).scan(any(ScanOptions.class));
+
+        revocations.rebuild();
+
+        assertThat(revocations.isRevoked(token("j1", "u1", issuedAt))).isTrue();
+    }
+
+    @Test
+    void filterHitThatCannotBeConfirmedIsRejected() {
+        revocations.revokeToken("j1", null);
+        doThrow(new RedisConnectionFailureException("down")).when(redis).hasKey(any());
+
+        assertThat(revocations.isRevoked(token("j1", "u1", System.currentTimeMillis()))).isTrue();
+        assertThat(revocations.stats()).containsEntry("confirmFailures", 1L);
+    }
+
+    private TokenRevocationService newService() {
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        TokenRevocationService service = new TokenRevocationService(redis, container, 900, 1_000, 0.001);
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(container).addMessageListener(listener.capture(), any(Topic.class));
+        channel = listener.getValue();
+        return service;
+    }
+
+    private static Claims token(String jti, String userId, long issuedAtMillis) {
+        Claims claims = Jwts.claims();
+        claims.setId(jti);
+        claims.put("userId", userId);
+        claims.put(Tokens.ISSUED_AT_MILLIS, issuedAtMillis);
+        return claims;
+    }
+}
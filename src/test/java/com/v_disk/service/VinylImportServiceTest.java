@@ -0,0 +1,137 @@
+package com.v_disk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.v_disk.model.ImportJob;
+import com.v_disk.model.Vinyl;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import jakarta.validation.Validation;
+
+/**
+ * Imports run synchronously (caller-runs executor) against an in-memory Mongo.
+ */
+class VinylImportServiceTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private VinylImportService imports;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        server.bind();
+        client = MongoClients.create("mongodb://127.0.0.1:" + server.getLocalAddress().getPort());
+        mongoTemplate = new MongoTemplate(client, "import_test");
+        mongoTemplate.indexOps(Vinyl.class).ensureIndex(new Index()
+                .on("titleKey", Sort.Direction.ASC).on("artistKey", Sort.Direction.ASC)
+                .named("titleKey_artistKey_idx").unique());
+
+        imports = new VinylImportService(mongoTemplate, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(VinylCatalogService.class), mock(VinylSnapshotService.class),
+                new ConcurrentTaskExecutor(Runnable::run), 100, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void nullNdjsonLineIsARowErrorNotAFailedJob() throws IOException {
+        ImportJob job = runImport(VinylImportService.NDJSON, """
+                {"title":"Abbey Road","artist":"The Beatles","price":99.9,"stock":3,"coverPath":"/c/1.jpg"}
+                null
+                {"title":"Kind of Blue","artist":"Miles Davis","price":89.9,"stock":1,"coverPath":"/c/2.jpg"}
+                """);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.COMPLETED);
+        assertThat(job.getProcessedRows()).isEqualTo(3);
+        assertThat(job.getInserted()).isEqualTo(2);
+        assertThat(job.getErrors()).containsExactly(new ImportJob.RowError(2, "Row must be a JSON object"));
+    }
+
+    @Test
+    void duplicateRowsInOneBatchAreUpsertedOnceAndTheLastOneWins() throws IOException {
+        ImportJob job = runImport(VinylImportService.NDJSON, """
+                {"title":"Abbey Road","artist":"The Beatles","price":99.9,"stock":3,"coverPath":"/c/1.jpg"}
+                {"title":"ABBEY ROAD ","artist":"the beatles","price":79.9,"stock":5,"coverPath":"/c/1b.jpg"}
+                """);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.COMPLETED);
+        assertThat(job.getInserted()).isEqualTo(1);
+        assertThat(job.getErrors()).singleElement()
+                .satisfies(e -> assertThat(e.row()).isEqualTo(1))
+                .satisfies(e -> assertThat(e.message()).startsWith("Superseded by row 2"));
+        List<Vinyl> vinyls = mongoTemplate.findAll(Vinyl.class);
+        assertThat(vinyls).singleElement().satisfies(v -> assertThat(v.getStock()).isEqualTo(5));
+    }
+
+    @Test
+    void csvImportUpdatesExistingVinylsByTitleAndArtist() throws IOException {
+        runImport(VinylImportService.CSV, """
+                title,artist,price,stock,coverPath
+                "Abbey Road","The Beatles",99.9,3,/c/1.jpg
+                """);
+        ImportJob second = runImport(VinylImportService.CSV, """
+                title,artist,price,stock,coverPath
+                abbey road,THE BEATLES,99.9,7,/c/1.jpg
+                """);
+
+        assertThat(second.getUpdated()).isEqualTo(1);
+        assertThat(second.getInserted()).isZero();
+        assertThat(mongoTemplate.findAll(Vinyl.class)).singleElement()
+                .satisfies(v -> assertThat(v.getStock()).isEqualTo(7));
+    }
+
+    @Test
+    void readCsvRecordHandlesQuotedCommasQuotesAndLineBreaks() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(
+                "plain,\"with, comma\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n"
+                        + "a,,\"\"\r\n"
+                        + "last,row"));
+
+        assertThat(VinylImportService.readCsvRecord(reader))
+                .containsExactly("plain", "with, comma", "say \"hi\"", "two\nlines");
+        assertThat(VinylImportService.readCsvRecord(reader)).containsExactly("a", "", "");
+        assertThat(VinylImportService.readCsvRecord(reader)).containsExactly("last", "row");
+        assertThat(VinylImportService.readCsvRecord(reader)).isNull();
+    }
+
+    @Test
+    void readCsvRecordKeepsCarriageReturnsInsideQuotes() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("\"x\r\ny\",\"end\"\"\""));
+
+        assertThat(VinylImportService.readCsvRecord(reader)).containsExactly("x\r\ny", "end\"");
+        assertThat(VinylImportService.readCsvRecord(reader)).isNull();
+    }
+
+    private ImportJob runImport(String format, String body) throws IOException {
+        ImportJob job = imports.start(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+        return imports.find(job.getId()).orElseThrow();
+    }
+}
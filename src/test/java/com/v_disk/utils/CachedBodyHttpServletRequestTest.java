@@ -0,0 +1,154 @@
+package com.v_disk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+class CachedBodyHttpServletRequestTest {
+
+    @Test
+    void smallBodyIsCachedAndReadOnce() throws IOException {
+        CachedBodyHttpServletRequest request = new CachedBodyHttpServletRequest(requestWith("{\"a\":1}"), 16);
+
+        assertThat(request.getCachedBody()).asString(StandardCharsets.UTF_8).isEqualTo("{\"a\":1}");
+        ServletInputStream in = request.getInputStream();
+        assertThat(request.getInputStream()).isSameAs(in);
+        assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"a\":1}");
+        assertThat(in.isFinished()).isTrue();
+        assertThat(request.getInputStream().read()).isEqualTo(-1);
+    }
+
+    @Test
+    void largeBodyReplaysTheHeadThenTheRest() throws IOException {
+        CachedBodyHttpServletRequest request = new CachedBodyHttpServletRequest(requestWith("0123456789"), 4);
+
+        assertThat(request.getCachedBody()).isNull();
+        assertThat(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("0123456789");
+        assertThat(request.getReader().read()).isEqualTo(-1);
+    }
+
+    @Test
+    void smallBodyReportsEverythingToTheListenerRightAway() throws IOException {
+        CachedBodyHttpServletRequest request = new CachedBodyHttpServletRequest(requestWith("abc"), 16);
+        ServletInputStream in = request.getInputStream();
+        RecordingListener listener = new RecordingListener(in);
+
+        in.setReadListener(listener);
+
+        assertThat(listener.events).containsExactly("data:abc", "allRead");
+    }
+
+    @Test
+    void largeBodyReportsTheHeadBeforeTheWrappedStreamIsReady() throws IOException {
+        FakeServletInputStream wrapped = new FakeServletInputStream("abcdef");
+        MockHttpServletRequest raw = new MockHttpServletRequest() {
+            @Override
+            public ServletInputStream getInputStream() {
+                return wrapped;
+            }
+        };
+        CachedBodyHttpServletRequest request = new CachedBodyHttpServletRequest(raw, 2);
+        ServletInputStream in = request.getInputStream();
+        RecordingListener listener = new RecordingListener(in);
+
+        wrapped.ready = false;
+        in.setReadListener(listener);
+
+        // the cached head is handed out without waiting for the wrapped stream
+        assertThat(listener.events).containsExactly("data:abc");
+        assertThat(wrapped.listener).isNotNull();
+
+        wrapped.ready = true;
+        wrapped.listener.onDataAvailable();
+        wrapped.listener.onAllDataRead();
+        assertThat(listener.events).containsExactly("data:abc", "data:def", "allRead");
+        assertThat(in.isFinished()).isTrue();
+    }
+
+    private static MockHttpServletRequest requestWith(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Reads whatever is ready on each callback, the way a non-blocking servlet does.
+     */
+    private static final class RecordingListener implements ReadListener {
+
+        private final ServletInputStream in;
+        private final List<String> events = new ArrayList<>();
+
+        RecordingListener(ServletInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            StringBuilder read = new StringBuilder();
+            byte[] buf = new byte[1];
+            while (in.isReady() && !in.isFinished()) {
+                int n = in.read(buf);
+                if (n < 0) break;
+                read.append((char) buf[0]);
+            }
+            events.add("data:" + read);
+        }
+
+        @Override
+        public void onAllDataRead() {
+            events.add("allRead");
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            events.add("error:" + t.getMessage());
+        }
+    }
+
+    private static final class FakeServletInputStream extends ServletInputStream {
+
+        private final InputStream bytes;
+        private boolean ready = true;
+        private ReadListener listener;
+
+        FakeServletInputStream(String body) {
+            this.bytes = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read() throws IOException {
+            return bytes.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            try {
+                return bytes.available() == 0;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.listener = readListener;
+        }
+    }
+}
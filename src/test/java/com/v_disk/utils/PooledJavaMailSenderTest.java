@@ -0,0 +1,274 @@
+package com.v_disk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+class PooledJavaMailSenderTest {
+
+    private FakeSmtpServer server;
+    private PooledJavaMailSender sender;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sender != null) sender.destroy();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void reusesOneSessionAcrossSends() throws Exception {
+        server = new FakeSmtpServer(0);
+        sender = sender(2, 10, 60_000, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            sender.send(message(i));
+        }
+
+        assertThat(server.connections()).isEqualTo(1);
+        assertThat(server.messages()).isEqualTo(3);
+        assertThat(sender.stats()).containsEntry("opened", 1L).containsEntry("reused", 2L);
+    }
+
+    @Test
+    void retiresSessionAfterMaxMessages() throws Exception {
+        server = new FakeSmtpServer(0);
+        sender = sender(1, 2, 60_000, 1_000);
+
+        sender.send(message(0), message(1), message(2), message(3), message(4));
+
+        // 2 + 2 + 1 messages
+        assertThat(server.connections()).isEqualTo(3);
+        assertThat(server.messages()).isEqualTo(5);
+        assertThat(server.messagesPerConnection()).allMatch(n -> n <= 2);
+    }
+
+    @Test
+    void capsConcurrentSessions() throws Exception {
+        server = new FakeSmtpServer(100);
+        sender = sender(2, 100, 60_000, 10_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                int n = i;
+                sends.add(pool.submit(() -> sender.send(message(n))));
+            }
+            for (Future<?> f : sends) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(server.messages()).isEqualTo(6);
+        assertThat(server.maxConcurrentConnections()).isLessThanOrEqualTo(2);
+        assertThat(sender.stats()).containsEntry("inUse", 0);
+    }
+
+    @Test
+    void failsWhenNoSessionFreesUpInTime() throws Exception {
+        server = new FakeSmtpServer(500);
+        sender = sender(1, 100, 60_000, 50);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = pool.submit(() -> sender.send(message(0)));
+            // let the first send take the only permit
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (server.connections() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThatThrownBy(() -> sender.send(message(1))).isInstanceOf(MailSendException.class);
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(server.messages()).isEqualTo(1);
+    }
+
+    @Test
+    void closeIdleOnlyClosesExpiredSessions() throws Exception {
+        server = new FakeSmtpServer(0);
+        sender = sender(1, 100, 200, 1_000);
+
+        sender.send(message(0));
+        sender.closeIdle();
+        sender.send(message(1));
+        assertThat(server.connections()).isEqualTo(1);
+
+        Thread.sleep(250);
+        sender.closeIdle();
+        assertThat(sender.stats()).containsEntry("idle", 0);
+        sender.send(message(2));
+        assertThat(server.connections()).isEqualTo(2);
+    }
+
+    @Test
+    void closeIdleNeverLetsBorrowersExceedMaxSessions() throws Exception {
+        server = new FakeSmtpServer(0);
+        sender = sender(1, 10_000, 60_000, 1_000);
+        sender.send(message(0));
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicBoolean sending = new AtomicBoolean(true);
+        try {
+            Future<?> sweeper = pool.submit(() -> {
+                while (sending.get()) sender.closeIdle();
+            });
+            for (int i = 1; i < 3000; i++) {
+                sender.send(message(i));
+            }
+            sending.set(false);
+            sweeper.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(server.connections()).isEqualTo(1);
+        assertThat(server.maxConcurrentConnections()).isEqualTo(1);
+    }
+
+    private PooledJavaMailSender sender(int maxSessions, int maxMessagesPerSession, long maxIdleMillis, long acquireTimeoutMillis) {
+        PooledJavaMailSender s = new PooledJavaMailSender(maxSessions, maxMessagesPerSession, maxIdleMillis, acquireTimeoutMillis);
+        s.setHost("127.0.0.1");
+        s.setPort(server.port());
+        s.setProtocol("smtp");
+        return s;
+    }
+
+    private static SimpleMailMessage message(int n) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setFrom("shop@v-disk.test");
+        msg.setTo("buyer" + n + "@v-disk.test");
+        msg.setSubject("Order " + n);
+        msg.setText("Thanks for order " + n);
+        return msg;
+    }
+
+    /**
+     * Minimal plaintext SMTP server: accepts every command, counts connections, messages
+     * per connection and the peak number of open connections. {@code dataDelayMillis}
+     * slows the reply to each message so concurrent senders overlap.
+     */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket socket;
+        private final long dataDelayMillis;
+        private final ExecutorService handlers = Executors.newCachedThreadPool();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicInteger maxOpen = new AtomicInteger();
+        private final List<AtomicInteger> perConnection = new CopyOnWriteArrayList<>();
+
+        FakeSmtpServer(long dataDelayMillis) throws IOException {
+            this.dataDelayMillis = dataDelayMillis;
+            this.socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            handlers.submit(this::acceptLoop);
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        int messages() {
+            return perConnection.stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+        List<Integer> messagesPerConnection() {
+            return perConnection.stream().map(AtomicInteger::get).toList();
+        }
+
+        int maxConcurrentConnections() {
+            return maxOpen.get();
+        }
+
+        private void acceptLoop() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    handlers.submit(() -> handle(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket client) {
+            connections.incrementAndGet();
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            AtomicInteger received = new AtomicInteger();
+            perConnection.add(received);
+            try (client;
+                    BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                    OutputStream out = client.getOutputStream()) {
+                reply(out, "220 fake-smtp ready");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (cmd) {
+                        case "EHLO", "HELO" -> reply(out, "250 fake-smtp");
+                        case "DATA" -> {
+                            reply(out, "354 end with <CRLF>.<CRLF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // discard the message body
+                            }
+                            Thread.sleep(dataDelayMillis);
+                            received.incrementAndGet();
+                            reply(out, "250 queued");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 bye");
+                            return;
+                        }
+                        default -> reply(out, "250 ok");
+                    }
+                }
+            } catch (SocketException e) {
+                // client went away
+            } catch (IOException | InterruptedException e) {
+                // test is shutting down
+            } finally {
+                open.decrementAndGet();
+            }
+        }
+
+        private static void reply(OutputStream out, String line) throws IOException {
+            out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            handlers.shutdownNow();
+        }
+    }
+}
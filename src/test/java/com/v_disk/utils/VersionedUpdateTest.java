@@ -0,0 +1,103 @@
+package com.v_disk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.v_disk.model.Vinyl;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.ServerVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+class VersionedUpdateTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend().version(ServerVersion.MONGO_5_0));
+        server.bind();
+        client = MongoClients.create("mongodb://127.0.0.1:" + server.getLocalAddress().getPort());
+        mongoTemplate = new MongoTemplate(client, "versioned_update_test");
+        mongoTemplate.getCollection("vinyls").insertOne(new Document("_id", "v1").append("title", "Abbey Road").append("version", 3L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void matchingVersionWritesOnlyTheGivenFieldsAndBumpsTheVersion() {
+        Vinyl updated = VersionedUpdate.apply(mongoTemplate, Vinyl.class, "v1", 3L,
+                new Update().set("stock", 5), true);
+
+        assertThat(updated.getVersion()).isEqualTo(4L);
+        assertThat(updated.getStock()).isEqualTo(5);
+        assertThat(updated.getTitle()).isEqualTo("Abbey Road");
+    }
+
+    @Test
+    void staleVersionIsAConflictAndLeavesTheDocumentAlone() {
+        assertThatThrownBy(() -> VersionedUpdate.apply(mongoTemplate, Vinyl.class, "v1", 2L,
+                new Update().set("title", "Let It Be"), true))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        Vinyl stored = mongoTemplate.findById("v1", Vinyl.class);
+        assertThat(stored.getTitle()).isEqualTo("Abbey Road");
+        assertThat(stored.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void missingDocumentIsNotFoundWithOrWithoutAVersion() {
+        assertThatThrownBy(() -> VersionedUpdate.apply(mongoTemplate, Vinyl.class, "nope", 1L,
+                new Update().set("stock", 1), true))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThatThrownBy(() -> VersionedUpdate.apply(mongoTemplate, Vinyl.class, "nope", null,
+                new Update().set("stock", 1), true))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThat(mongoTemplate.findById("nope", Vinyl.class)).isNull();
+    }
+
+    @Test
+    void withoutAVersionThePatchAlwaysApplies() {
+        Vinyl before = VersionedUpdate.apply(mongoTemplate, Vinyl.class, "v1", null,
+                new Update().set("title", "Let It Be"), false);
+
+        assertThat(before.getTitle()).isEqualTo("Abbey Road");
+        Vinyl stored = mongoTemplate.findById("v1", Vinyl.class);
+        assertThat(stored.getTitle()).isEqualTo("Let It Be");
+        assertThat(stored.getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void documentsFromBeforeVersioningMatchVersionZero() {
+        mongoTemplate.getCollection("vinyls").insertOne(new Document("_id", "legacy").append("title", "Help!"));
+
+        Vinyl updated = VersionedUpdate.apply(mongoTemplate, Vinyl.class, "legacy", 0L,
+                new Update().set("stock", 2), true);
+
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThatThrownBy(() -> VersionedUpdate.apply(mongoTemplate, Vinyl.class, "legacy", 0L,
+                new Update().set("stock", 3), true))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+}